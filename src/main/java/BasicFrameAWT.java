@@ -6,24 +6,27 @@ import java.awt.Dimension;
 import java.awt.Point;
 import java.awt.event.*;
 import java.awt.geom.AffineTransform;
-import java.awt.geom.Arc2D;
-import java.awt.geom.Ellipse2D;
+import java.awt.geom.Rectangle2D;
 import java.io.*;
 import java.util.*;
 import java.util.List;
-import java.util.stream.IntStream;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
 
 import org.geotools.api.data.FileDataStore;
 import org.geotools.api.data.FileDataStoreFinder;
+import org.geotools.api.data.Query;
 import org.geotools.api.data.SimpleFeatureSource;
 import org.geotools.api.data.SimpleFeatureStore;
 import org.geotools.api.feature.simple.SimpleFeature;
 import org.geotools.api.feature.simple.SimpleFeatureType;
+import org.geotools.api.filter.Filter;
+import org.geotools.api.filter.FilterFactory;
 import org.geotools.data.DefaultTransaction;
 import org.geotools.data.shapefile.ShapefileDataStore;
 import org.geotools.data.shapefile.ShapefileDataStoreFactory;
 import org.geotools.data.simple.SimpleFeatureCollection;
-import org.geotools.data.simple.SimpleFeatureIterator;
+import org.geotools.factory.CommonFactoryFinder;
 import org.geotools.api.data.Transaction;
 import org.geotools.feature.DefaultFeatureCollection;
 import org.geotools.feature.simple.SimpleFeatureBuilder;
@@ -44,11 +47,15 @@ public class BasicFrameAWT extends JFrame {
     private static final long serialVersionUID = 1L;
     private static final int FRAME_WIDTH = 800;
     private static final int FRAME_HEIGHT = 600;
+    private static final long TILE_CACHE_BYTES = 64L * 1024 * 1024; // Memory budget of the rendered tiles
 
     private double scale = 1.0; // Initial scale factor
     private double translateX = 0; // X-axis translation for panning
     private double translateY = 0; // Y-axis translation for panning
     private final Map<String, ShapeManager> shapeManagers = new HashMap<>(); // Manages different types of shapes
+    private final LinkedShapefileLayer linkedLayer = new LinkedShapefileLayer(ex -> JOptionPane.showMessageDialog(this, ex.getMessage(), "Error", JOptionPane.INFORMATION_MESSAGE)); // Shapefile shown from disk
+    private final DatabaseLayer databaseLayer = new DatabaseLayer(ex -> JOptionPane.showMessageDialog(this, ex.getMessage(), "Error", JOptionPane.INFORMATION_MESSAGE)); // Database shown tile by tile
+    private final List<ShapeLayer> layers = new ArrayList<>(); // Everything rendered: the read-only layers, then the editable shapes
     private final DatabaseManager databaseManager = new DatabaseManager(); // Handles database interactions
     private final JLabel infoLabel = new JLabel("Welcome to the Graphical Objects Tool!"); // Status label
     private ShapeManager currentShapeManager; // The currently active ShapeManager
@@ -66,6 +73,18 @@ public class BasicFrameAWT extends JFrame {
         setTitle("Graphical Objects Tool");
         setSize(FRAME_WIDTH, FRAME_HEIGHT);
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        addWindowListener(new WindowAdapter() {
+            // The connection pools keep connections and evictor threads open until they are closed
+            @Override
+            public void windowClosing(WindowEvent e) {
+                closeDatabase();
+            }
+
+            @Override
+            public void windowClosed(WindowEvent e) {
+                closeDatabase();
+            }
+        });
         setLocationRelativeTo(null);
         setLayout(new BorderLayout());
         getContentPane().setBackground(new Color(0, 0, 139)); 
@@ -105,8 +124,15 @@ public class BasicFrameAWT extends JFrame {
         newMenuItem.addActionListener(e -> {
         	 // Reset all shapes in each shape manager
             for (ShapeManager shapeManager : shapeManagers.values()) {
-                shapeManager.newFrame();
+                shapeManager.beginUpdate();
+                try {
+                    shapeManager.newFrame();
+                } finally {
+                    shapeManager.endUpdate();
+                }
             }
+            linkedLayer.unlink();
+            databaseLayer.unlink();
             repaint();
         });
         fileMenu.add(newMenuItem);
@@ -123,87 +149,73 @@ public class BasicFrameAWT extends JFrame {
                     return;
                 }
 
-                FileDataStore store = FileDataStoreFinder.getDataStore(file);
+                importShapefile(file, false);
+
+            } catch (IOException ex) {
+                JOptionPane.showMessageDialog(this, ex.getMessage(), "Error", JOptionPane.INFORMATION_MESSAGE);
+            }
+        });
+
+        JMenuItem importFromMappedShapefile = new JMenuItem("... from Shapefile (fast, geometry only)");
+        importMenuItem.add(importFromMappedShapefile);
+        importFromMappedShapefile.addActionListener(e -> {
+            try {
+                File file = JFileDataStoreChooser.showOpenFile("shp", null);
+                if (file == null) {
+                    return;
+                }
+
+                importShapefile(file, true);
+
+            } catch (IOException ex) {
+                JOptionPane.showMessageDialog(this, ex.getMessage(), "Error", JOptionPane.INFORMATION_MESSAGE);
+            }
+        });
+
+        JMenuItem importAreaFromShapefile = new JMenuItem("... from Shapefile (area only)");
+        importMenuItem.add(importAreaFromShapefile);
+        importAreaFromShapefile.addActionListener(e -> {
+            try {
+                File file = JFileDataStoreChooser.showOpenFile("shp", null);
+                if (file == null) {
+                    return;
+                }
+                Rectangle2D area = askImportArea();
+                if (area == null) {
+                    return;
+                }
+
+                // The spatial index lets GeoTools read only the records whose bounding box intersects the area
+                ShapefileDataStore store = new ShapefileDataStore(file.toURI().toURL());
+                store.setIndexed(true);
+                store.setIndexCreationEnabled(true);
                 SimpleFeatureSource featureSource = store.getFeatureSource();
-                SimpleFeatureCollection featureCollection = featureSource.getFeatures();
-
-                ReferencedEnvelope envelope = featureCollection.getBounds();
-                double minX = envelope.getMinX();
-                double maxX = envelope.getMaxX();
-                double minY = envelope.getMinY();
-                double maxY = envelope.getMaxY();
-
-                double width = maxX - minX;
-                double height = maxY - minY;
-
-                // Define a padding percentage
-                double paddingFactor = 0.1; // 10% padding
-
-                // Calculate the width and height with padding
-                double paddedWidth = width * (1 + 2 * paddingFactor);
-                double paddedHeight = height * (1 + 2 * paddingFactor);
-
-                // Calculate the scale
-                double scaleX = FRAME_WIDTH / paddedWidth;
-                double scaleY = FRAME_HEIGHT / paddedHeight;
-                scale = Math.min(scaleX, scaleY);
-
-                // Calculate the new translateX and translateY with padding
-                double paddingX = width * paddingFactor;
-                double paddingY = height * paddingFactor;
-                 
-                translateX = -(minX * scale) + (FRAME_WIDTH - (width + 2 * paddingX) * scale) / 2;
-                translateY = -(minY * scale) + (FRAME_HEIGHT - (height + 2 * paddingY) * scale) / 2;
-
-                try (SimpleFeatureIterator featureIterator = featureCollection.features()) {
-                    while (featureIterator.hasNext()) {
-                        SimpleFeature feature = featureIterator.next();
-                        Geometry geometry = (Geometry) feature.getDefaultGeometryProperty().getValue();
-
-                        List<Double> xValues = new ArrayList<>();
-                        List<Double> yValues = new ArrayList<>();
-
-                        if (geometry instanceof MultiPolygon || geometry instanceof Polygon) {
-                            for (int i = 0; i < geometry.getNumGeometries(); i++) {
-                                Geometry polygon = geometry.getGeometryN(i);
-                                Coordinate[] coordinates = polygon.getCoordinates();
-
-                                for (Coordinate coord : coordinates) {
-                                    xValues.add(coord.x);
-                                    yValues.add(coord.y);
-                                }
-
-                                shapeManagers.get("Polygon").addShape(xValues, yValues);
-                            }
-                        } else if (geometry instanceof MultiPoint || geometry instanceof org.locationtech.jts.geom.Point) {
-                            xValues = IntStream
-                                    .range(0, geometry.getNumGeometries())
-                                    .mapToObj(i -> geometry.getGeometryN(i).getCoordinate().x)
-                                    .toList();
-                            yValues = IntStream
-                                    .range(0, geometry.getNumGeometries())
-                                    .mapToObj(i -> geometry.getGeometryN(i).getCoordinate().y)
-                                    .toList();
-
-                            shapeManagers.get("Point").addShape(xValues, yValues);
-                        } else if (geometry instanceof MultiLineString || geometry instanceof LineString) {
-                            for (int i = 0; i < geometry.getNumGeometries(); i++) {
-                                Geometry lineString = geometry.getGeometryN(i);
-                                Coordinate[] coordinates = lineString.getCoordinates();
-
-                                for (Coordinate coord : coordinates) {
-                                    xValues.add(coord.x);
-                                    yValues.add(coord.y);
-                                }
-
-                                shapeManagers.get("Line").addShape(xValues, yValues);
-                            }
-                        }
-                    }
+                SimpleFeatureType schema = featureSource.getSchema();
+                String geometryName = schema.getGeometryDescriptor().getLocalName();
+                FilterFactory filterFactory = CommonFactoryFinder.getFilterFactory();
+                Filter filter = filterFactory.bbox(filterFactory.property(geometryName), new ReferencedEnvelope(area.getMinX(),
+                        area.getMaxX(), area.getMinY(), area.getMaxY(), schema.getCoordinateReferenceSystem()));
+                SimpleFeatureCollection featureCollection = featureSource.getFeatures(new Query(schema.getTypeName(), filter, new String[]{geometryName}));
+
+                fitView(area);
+                startImport(file, new ShapefileImporter(store, featureCollection, shapeManagers));
+            } catch (IOException ex) {
+                JOptionPane.showMessageDialog(this, ex.getMessage(), "Error", JOptionPane.INFORMATION_MESSAGE);
+            }
+        });
 
-                    repaint();
+        JMenuItem linkShapefile = new JMenuItem("... from Shapefile (linked layer)");
+        importMenuItem.add(linkShapefile);
+        linkShapefile.addActionListener(e -> {
+            try {
+                File file = JFileDataStoreChooser.showOpenFile("shp", null);
+                if (file == null) {
+                    return;
                 }
 
+                // The file stays on disk, the features around the viewport are loaded whenever the panel is painted
+                fitView(linkedLayer.link(file));
+                infoLabel.setText("Linked " + file.getName());
             } catch (IOException ex) {
                 JOptionPane.showMessageDialog(this, ex.getMessage(), "Error", JOptionPane.INFORMATION_MESSAGE);
             }
@@ -222,76 +234,32 @@ public class BasicFrameAWT extends JFrame {
             int userSelection = fileChooser.showOpenDialog(null);
             if (userSelection == JFileChooser.APPROVE_OPTION) {
                 File csvFile = fileChooser.getSelectedFile();
-                
-                try (BufferedReader reader = new BufferedReader(new FileReader(csvFile))) {
-                    String line;
-                    reader.readLine();
-
-                    while ((line = reader.readLine()) != null) {
-                        String[] parts = line.split(",");
-                        if (parts.length >= 2) {
-                            String type = parts[0];
-                            ShapeManager shapeManager = this.shapeManagers.get(type);
-
-                            String description = parts[1].trim();
-                            String[] descriptions = description.split(" ");
-                            switch (type) {
-                                case "Arc":
-                                    ((ArcManager) shapeManager).addShape(new Arc2D.Double(
-                                        Double.parseDouble(descriptions[0]),
-                                        Double.parseDouble(descriptions[1]),
-                                        Double.parseDouble(descriptions[2]),
-                                        Double.parseDouble(descriptions[3]),
-                                        Double.parseDouble(descriptions[4]),
-                                        Integer.parseInt(descriptions[5]),
-                                        Integer.parseInt(descriptions[6])
-                                    ));
-                                    break;
-                                case "Circle":
-                                    ((CircleManager) shapeManager).addShape(new Ellipse2D.Double(
-                                        Double.parseDouble(descriptions[0]),
-                                        Double.parseDouble(descriptions[1]),
-                                        Double.parseDouble(descriptions[2]),
-                                        Double.parseDouble(descriptions[2])
-                                    ));
-                                    break;
-                                case "Ellipse":
-                                    ((EllipseManager) shapeManager).addShape(new Ellipse2D.Double(
-                                        Double.parseDouble(descriptions[0]),
-                                        Double.parseDouble(descriptions[1]),
-                                        Double.parseDouble(descriptions[2]),
-                                        Double.parseDouble(descriptions[3])
-                                    ));
-                                    break;
-                                case "Line":
-                                case "Point":
-                                case "Polygon":
-                                case "Triangle":
-                                    addShapeByPoints(shapeManager, description);
-                                    break;
-                                case "Rectangle":
-                                    ((RectangleManager) shapeManager).addShape(new Rectangle(
-                                        (int) Double.parseDouble(descriptions[0]), 
-                                        (int) Double.parseDouble(descriptions[1]), 
-                                        (int) Double.parseDouble(descriptions[2]), 
-                                        (int) Double.parseDouble(descriptions[3])
-                                    ));
-                                    break;
-                                case "Square":
-                                    ((SquareManager) shapeManager).addShape(new Rectangle(
-                                        (int) Double.parseDouble(descriptions[0]), 
-                                        (int) Double.parseDouble(descriptions[1]), 
-                                        (int) Double.parseDouble(descriptions[2]), 
-                                        (int) Double.parseDouble(descriptions[2])
-                                    ));
-                                    break;
-                                default:
-                                    break;
-                            }
-                        } 
+
+                // Parsed in parallel chunks in the background, the shapes are shown chunk by chunk while they arrive
+                startImport(csvFile, new CSVImporter(csvFile, shapeManagers));
+            }
+        });
+
+        JMenuItem importFromScene = new JMenuItem("... from scene file");
+        importMenuItem.add(importFromScene);
+        importFromScene.addActionListener(e -> {
+            JFileChooser fileChooser = new JFileChooser();
+            fileChooser.setDialogTitle("Select a Scene File");
+            fileChooser.setFileFilter(new FileNameExtensionFilter("Scene files", "scene"));
+
+            int userSelection = fileChooser.showOpenDialog(null);
+            if (userSelection == JFileChooser.APPROVE_OPTION) {
+                // Decoded straight from the mapped file, which is fast enough to do at once
+                try (SceneReader reader = new SceneReader(fileChooser.getSelectedFile())) {
+                    CSVChunk shapes = reader.read();
+                    for (ShapeManager shapeManager : shapeManagers.values()) shapeManager.beginUpdate();
+                    try {
+                        shapes.addTo(shapeManagers);
+                    } finally {
+                        for (ShapeManager shapeManager : shapeManagers.values()) shapeManager.endUpdate();
                     }
-                } catch (Exception ex1) {
-                    JOptionPane.showMessageDialog(this, ex1.getMessage(), "Error", JOptionPane.INFORMATION_MESSAGE);
+                } catch (IOException ex) {
+                    JOptionPane.showMessageDialog(this, ex.getMessage(), "Error", JOptionPane.INFORMATION_MESSAGE);
                 }
             }
             repaint();
@@ -305,70 +273,11 @@ public class BasicFrameAWT extends JFrame {
 
             databaseManager.importConnect(dbName, password);
             if (databaseManager.isConnected()) {
-                List<String> lines = databaseManager.getAllObjects();
-                for (String line : lines) {
-                    String[] parts = line.split(",");
-                    if (parts.length >= 2) {
-                        String type = parts[0];
-                        ShapeManager shapeManager = this.shapeManagers.get(type);
-                            
-                        String description = parts[1].trim();
-                        String[] descriptions = description.split(" ");
-                        switch (type) {
-                            case "Arc":
-                                ((ArcManager) shapeManager).addShape(new Arc2D.Double(
-                                    Double.parseDouble(descriptions[0]),
-                                    Double.parseDouble(descriptions[1]),
-                                    Double.parseDouble(descriptions[2]),
-                                    Double.parseDouble(descriptions[3]),
-                                    Double.parseDouble(descriptions[4]),
-                                    Integer.parseInt(descriptions[5]),
-                                    Integer.parseInt(descriptions[6])
-                                ));
-                                break;
-                            case "Circle":
-                                ((CircleManager) shapeManager).addShape(new Ellipse2D.Double(
-                                    Double.parseDouble(descriptions[0]),
-                                    Double.parseDouble(descriptions[1]),
-                                    Double.parseDouble(descriptions[2]),
-                                    Double.parseDouble(descriptions[2])
-                                ));
-                                break;
-                            case "Ellipse":
-                                ((EllipseManager) shapeManager).addShape(new Ellipse2D.Double(
-                                    Double.parseDouble(descriptions[0]),
-                                    Double.parseDouble(descriptions[1]),
-                                    Double.parseDouble(descriptions[2]),
-                                    Double.parseDouble(descriptions[3])
-                                ));
-                                break;
-                            case "Line":
-                            case "Point":
-                            case "Polygon":
-                            case "Triangle":
-                                addShapeByPoints(shapeManager, description);
-                                break;
-                            case "Rectangle":
-                                ((RectangleManager) shapeManager).addShape(new Rectangle(
-                                    (int) Double.parseDouble(descriptions[0]), 
-                                    (int) Double.parseDouble(descriptions[1]), 
-                                    (int) Double.parseDouble(descriptions[2]), 
-                                    (int) Double.parseDouble(descriptions[3])
-                                ));
-                                break;
-                            case "Square":
-                                ((SquareManager) shapeManager).addShape(new Rectangle(
-                                    (int) Double.parseDouble(descriptions[0]), 
-                                    (int) Double.parseDouble(descriptions[1]), 
-                                    (int) Double.parseDouble(descriptions[2]), 
-                                    (int) Double.parseDouble(descriptions[2])
-                                ));
-                                break;
-                            default:
-                                break;
-                        }
-                    }                
-                        
+                // The rows are streamed from the database straight into the CSV tokenizer, keeping their ids
+                try {
+                    databaseManager.importObjects(shapeManagers);
+                } catch (IOException ex) {
+                    JOptionPane.showMessageDialog(this, ex.getMessage(), "Error", JOptionPane.INFORMATION_MESSAGE);
                 }
                 repaint();
                 databaseManager.abortConnection();
@@ -377,6 +286,52 @@ public class BasicFrameAWT extends JFrame {
             }
         });
 
+        JMenuItem importAreaFromDB = new JMenuItem("... from database (area only)");
+        importMenuItem.add(importAreaFromDB);
+        importAreaFromDB.addActionListener(e -> {
+            String dbName = JOptionPane.showInputDialog(this, "Enter Database name");
+            String password = JOptionPane.showInputDialog(this, "Enter Database password");
+
+            databaseManager.importConnect(dbName, password);
+            if (databaseManager.isConnected()) {
+                Rectangle2D area = askImportArea();
+                // Only the rows found by the index on the bounds are read
+                if (area != null) {
+                    try (InputStream input = databaseManager.objectReader(area)) {
+                        new CSVShapeReader(input, shapeManagers).read();
+                    } catch (IOException ex) {
+                        JOptionPane.showMessageDialog(this, ex.getMessage(), "Error", JOptionPane.INFORMATION_MESSAGE);
+                    }
+                    repaint();
+                }
+                databaseManager.abortConnection();
+            } else {
+                JOptionPane.showMessageDialog(this, "Connection failed. Make sure the database exist and the connection is available.", "Error", JOptionPane.INFORMATION_MESSAGE);
+            }
+        });
+
+        JMenuItem linkDB = new JMenuItem("... from database (linked layer)");
+        importMenuItem.add(linkDB);
+        linkDB.addActionListener(e -> {
+            String dbName = JOptionPane.showInputDialog(this, "Enter Database name");
+            String password = JOptionPane.showInputDialog(this, "Enter Database password");
+
+            databaseManager.importConnect(dbName, password);
+            if (databaseManager.isConnected()) {
+                // The rows stay in the database, the tiles around the viewport are loaded whenever the panel is painted
+                try {
+                    databaseLayer.link(databaseManager.objectSource());
+                    infoLabel.setText("Linked database " + (dbName == null || dbName.trim().isEmpty() ? "graphical_objects" : dbName));
+                } catch (IOException ex) {
+                    JOptionPane.showMessageDialog(this, ex.getMessage(), "Error", JOptionPane.INFORMATION_MESSAGE);
+                }
+                databaseManager.abortConnection();
+                repaint();
+            } else {
+                JOptionPane.showMessageDialog(this, "Connection failed. Make sure the database exist and the connection is available.", "Error", JOptionPane.INFORMATION_MESSAGE);
+            }
+        });
+
         JMenu exportMenuItem = new JMenu("export");
         fileMenu.add(exportMenuItem);
         
@@ -456,10 +411,7 @@ public class BasicFrameAWT extends JFrame {
                     writer.newLine();
 
                     for (ShapeManager shapeManager : shapeManagers.values()) {
-                        String csvString = shapeManager.toCSVString();
-                        if (!csvString.isEmpty()) {
-                            writer.write(csvString);
-                        }
+                        shapeManager.writeCSV(writer);
                     }
                 } catch (Exception ex1) {
                     JOptionPane.showMessageDialog(this, ex1.getMessage(), "Error", JOptionPane.INFORMATION_MESSAGE);
@@ -468,6 +420,35 @@ public class BasicFrameAWT extends JFrame {
             repaint();
         });
 
+        JMenuItem exportToScene = new JMenuItem("... as scene file");
+        exportMenuItem.add(exportToScene);
+        exportToScene.addActionListener(e -> {
+            JFileChooser directoryChooser = new JFileChooser();
+            directoryChooser.setDialogTitle("Select a Directory to Save the Scene");
+            directoryChooser.setFileSelectionMode(JFileChooser.DIRECTORIES_ONLY);
+
+            int userSelection = directoryChooser.showSaveDialog(null);
+            if (userSelection == JFileChooser.APPROVE_OPTION) {
+                File directory = directoryChooser.getSelectedFile();
+                String filename = JOptionPane.showInputDialog(null, "Enter Filename");
+
+                if (filename == null || filename.trim().isEmpty()) {
+                    filename = "shapes";
+                }
+
+                File sceneFile = new File(directory, filename + ".scene");
+                if (!directory.exists()) directory.mkdir();
+
+                try (SceneWriter writer = new SceneWriter(sceneFile)) {
+                    for (ShapeManager shapeManager : shapeManagers.values()) {
+                        shapeManager.writeScene(writer);
+                    }
+                } catch (IOException ex1) {
+                    JOptionPane.showMessageDialog(this, ex1.getMessage(), "Error", JOptionPane.INFORMATION_MESSAGE);
+                }
+            }
+        });
+
         JMenuItem exportToDB = new JMenuItem("... to database");
         exportMenuItem.add(exportToDB);
         exportToDB.addActionListener(e -> {
@@ -476,13 +457,14 @@ public class BasicFrameAWT extends JFrame {
 
             databaseManager.exportConnect(dbName, password);
             if (databaseManager.isConnected()) {
-                databaseManager.clearTable();
-                for (ShapeManager shapeManager : shapeManagers.values()) {
-                    String csvString = shapeManager.toCSVString();
-                    if (!csvString.isEmpty()) {
-                        databaseManager.insertObject(csvString);
-                    }
+                // Only the edits since the last export to this database are applied, in one transaction
+                try {
+                    int changes = databaseManager.synchronize(shapeManagers.values());
+                    infoLabel.setText("Exported " + changes + " changed objects");
+                } catch (IOException ex1) {
+                    JOptionPane.showMessageDialog(this, ex1.getMessage(), "Error", JOptionPane.INFORMATION_MESSAGE);
                 }
+                databaseManager.abortConnection();
             } else JOptionPane.showMessageDialog(this, "Connection failed. Make the connection is available.", "Error", JOptionPane.INFORMATION_MESSAGE);
         });
 
@@ -518,6 +500,9 @@ public class BasicFrameAWT extends JFrame {
         shapeManagers.put("Square", new SquareManager());
         shapeManagers.put("Rectangle", new RectangleManager());
         shapeManagers.put("Triangle", new TriangleManager());
+        layers.add(linkedLayer);
+        layers.add(databaseLayer);
+        layers.addAll(shapeManagers.values());
 
         currentShapeManager = shapeManagers.get("Point");
     }
@@ -534,6 +519,12 @@ public class BasicFrameAWT extends JFrame {
         });
     }
 
+    private void closeDatabase() {
+        // The linked layer borrows from a pool of its own, which is closed by unlinking it
+        databaseLayer.unlink();
+        databaseManager.close();
+    }
+
     private void setApplicationLogo() {
         try {
             Image icon = new ImageIcon("logos/logo.png").getImage();
@@ -636,22 +627,106 @@ public class BasicFrameAWT extends JFrame {
         return popupMenu;
     }
 
-    private static void addShapeByPoints(ShapeManager shapeManager, String points) {
-        List<Double> xValues = new ArrayList<>();
-        List<Double> yValues = new ArrayList<>();
-        String[] pointsArray = points.split("\\) \\(");
+    private void fitView(Rectangle2D bounds) {
+        double minX = bounds.getMinX();
+        double maxX = bounds.getMaxX();
+        double minY = bounds.getMinY();
+        double maxY = bounds.getMaxY();
+
+        double width = maxX - minX;
+        double height = maxY - minY;
+
+        // Define a padding percentage
+        double paddingFactor = 0.1; // 10% padding
+
+        // Calculate the width and height with padding
+        double paddedWidth = width * (1 + 2 * paddingFactor);
+        double paddedHeight = height * (1 + 2 * paddingFactor);
 
-        for (String point : pointsArray) {
-            point = point.replace("(", "").replace(")", "");
-            String[] coordinates = point.trim().split(" ");
+        // Calculate the scale
+        double scaleX = FRAME_WIDTH / paddedWidth;
+        double scaleY = FRAME_HEIGHT / paddedHeight;
+        scale = Math.min(scaleX, scaleY);
 
-            if (coordinates.length == 2) {
-                xValues.add(Double.parseDouble(coordinates[0]));
-                yValues.add(Double.parseDouble(coordinates[1]));
+        // Calculate the new translateX and translateY with padding
+        double paddingX = width * paddingFactor;
+        double paddingY = height * paddingFactor;
+
+        translateX = -(minX * scale) + (FRAME_WIDTH - (width + 2 * paddingX) * scale) / 2;
+        translateY = -(minY * scale) + (FRAME_HEIGHT - (height + 2 * paddingY) * scale) / 2;
+
+        repaint();
+    }
+
+    private void importShapefile(File file, boolean mapped) throws IOException {
+        // The mapped reader decodes the geometry straight from the files; other shape types are read with GeoTools
+        ShapefileImporter importer;
+        Rectangle2D bounds;
+        if (mapped && MappedShapefileReader.canRead(file)) {
+            MappedShapefileReader reader = new MappedShapefileReader(file);
+            bounds = reader.getBounds();
+            importer = new ShapefileImporter(reader, shapeManagers);
+        } else {
+            FileDataStore store = FileDataStoreFinder.getDataStore(file);
+            SimpleFeatureSource featureSource = store.getFeatureSource();
+            SimpleFeatureCollection featureCollection = featureSource.getFeatures();
+            ReferencedEnvelope envelope = featureCollection.getBounds();
+            bounds = new Rectangle2D.Double(envelope.getMinX(), envelope.getMinY(), envelope.getWidth(), envelope.getHeight());
+            importer = new ShapefileImporter(store, featureCollection, shapeManagers);
+        }
+        fitView(bounds);
+        startImport(file, importer);
+    }
+
+    private void startImport(File file, SwingWorker<Integer, ?> importer) {
+        ProgressMonitor progressMonitor = new ProgressMonitor(this, "Importing " + file.getName(), null, 0, 100);
+        importer.addPropertyChangeListener(event -> {
+            if (progressMonitor.isCanceled()) importer.cancel(false);
+            if ("progress".equals(event.getPropertyName())) {
+                progressMonitor.setProgress(importer.getProgress());
+            } else if (importer.isDone()) {
+                progressMonitor.close();
+                showImportResult(importer);
             }
+        });
+        importer.execute();
+    }
+
+    private Rectangle2D askImportArea() {
+        // Proposes the area currently shown, so the user may just pan and zoom to it instead of typing it
+        double[] values = {-translateX / scale, -translateY / scale, (FRAME_WIDTH - translateX) / scale, (FRAME_HEIGHT - translateY) / scale};
+        String[] labels = {"Min X", "Min Y", "Max X", "Max Y"};
+        JTextField[] fields = new JTextField[values.length];
+        JPanel panel = new JPanel(new GridLayout(values.length, 2));
+        for (int i = 0; i < values.length; i++) {
+            fields[i] = new JTextField(String.valueOf(values[i]));
+            panel.add(new JLabel(labels[i]));
+            panel.add(fields[i]);
         }
 
-        shapeManager.addShape(xValues, yValues);
+        while (JOptionPane.showConfirmDialog(this, panel, "Area to import", JOptionPane.OK_CANCEL_OPTION) == JOptionPane.OK_OPTION) {
+            try {
+                for (int i = 0; i < values.length; i++) values[i] = Double.parseDouble(fields[i].getText().trim());
+                if (values[0] < values[2] && values[1] < values[3]) {
+                    return new Rectangle2D.Double(values[0], values[1], values[2] - values[0], values[3] - values[1]);
+                }
+                JOptionPane.showMessageDialog(this, "The minimum must be less than the maximum", "Error", JOptionPane.INFORMATION_MESSAGE);
+            } catch (NumberFormatException ex) {
+                JOptionPane.showMessageDialog(this, "Invalid number: " + ex.getMessage(), "Error", JOptionPane.INFORMATION_MESSAGE);
+            }
+        }
+        return null;
+    }
+
+    private void showImportResult(SwingWorker<Integer, ?> importer) {
+        try {
+            infoLabel.setText("Imported " + importer.get() + " features");
+        } catch (CancellationException ex) {
+            infoLabel.setText("Import cancelled");
+        } catch (InterruptedException | ExecutionException ex) {
+            Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+            JOptionPane.showMessageDialog(this, cause.getMessage(), "Error", JOptionPane.INFORMATION_MESSAGE);
+        }
     }
 
     private SimpleFeatureType createFeatureType(String typeName, Class<?> geometryClass) {
@@ -699,16 +774,23 @@ public class BasicFrameAWT extends JFrame {
     }
 
     private class DrawingPanel extends JPanel {
+        private final RenderEngine renderEngine = new RenderEngine(layers, TILE_CACHE_BYTES, this::repaint); // Renders the frames off the EDT
     	/**
          * Constructs the DrawingPanel and sets up mouse listeners for interactions.
          */
 
         public DrawingPanel() {
+            // Render the frames again wherever shapes change
+            for (ShapeLayer layer : layers) {
+                layer.addShapeChangeListener(renderEngine::invalidate);
+            }
+
             addMouseListener(new MouseAdapter() {
                 @Override
                 public void mouseClicked(MouseEvent e) {
+                    Rectangle2D previewBounds = currentShapeManager.getPreviewBounds();
                     currentShapeManager.setCurrentMode(currentMode);
-                    currentShapeManager.setMouseClickedBehaviour(new MouseEvent(
+                    MouseEvent modelEvent = new MouseEvent(
                             e.getComponent(),
                             e.getID(),
                             e.getWhen(),
@@ -717,31 +799,33 @@ public class BasicFrameAWT extends JFrame {
                             (int) ((e.getY() - translateY) / scale),
                             e.getClickCount(),
                             e.isPopupTrigger(),
-                            e.getButton())
-                    );
-                    repaint();
+                            e.getButton());
+                    updateShapes(() -> currentShapeManager.setMouseClickedBehaviour(modelEvent));
+                    // Changed shapes are repainted by the render engine once their tiles are up to date
+                    repaintPreview(previewBounds);
                 }
 
                 @Override
                 public void mousePressed(MouseEvent e) {
-                    currentShapeManager.setMousePressedBehaviour(e);
+                    updateShapes(() -> currentShapeManager.setMousePressedBehaviour(e));
                 }
 
                 @Override
                 public void mouseReleased(MouseEvent e) {
-                    currentShapeManager.setMouseReleasedBehaviour(e);
+                    updateShapes(() -> currentShapeManager.setMouseReleasedBehaviour(e));
                 }
             });
 
             addMouseMotionListener(new MouseMotionAdapter() {
                 @Override
                 public void mouseDragged(MouseEvent e) {
-                    currentShapeManager.setMouseDraggedBehaviour(e);
-                    repaint();
+                    // The moved shapes report their old and new bounds, which the render engine repaints
+                    updateShapes(() -> currentShapeManager.setMouseDraggedBehaviour(e));
                 }
 
                 @Override
                 public void mouseMoved(MouseEvent e) {
+                    Rectangle2D previewBounds = currentShapeManager.getPreviewBounds();
                     currentShapeManager.setCurrentMousePosition(new MouseEvent(
                             e.getComponent(),
                             e.getID(),
@@ -753,7 +837,7 @@ public class BasicFrameAWT extends JFrame {
                             e.isPopupTrigger(),
                             e.getButton())
                     );
-                    repaint();
+                    repaintPreview(previewBounds);
                 }
             });
 
@@ -781,6 +865,27 @@ public class BasicFrameAWT extends JFrame {
                 }
             });
         }
+        /**
+         * Repaints the old and the current area of the creation preview.
+         *
+         * @param previousBounds the bounds of the preview before the mouse event, or null if there was none.
+         */
+        private void repaintPreview(Rectangle2D previousBounds) {
+            repaintModelArea(previousBounds);
+            repaintModelArea(currentShapeManager.getPreviewBounds());
+        }
+        /**
+         * Repaints the part of the panel showing the given area of the model.
+         *
+         * @param bounds the area in model space, ignored if null.
+         */
+        private void repaintModelArea(Rectangle2D bounds) {
+            if (bounds == null) return;
+            ViewState view = new ViewState(scale, translateX, translateY, getWidth(), getHeight());
+            Rectangle area = view.createTransform().createTransformedShape(bounds).getBounds();
+            area.grow(2, 2);// Covers the stroke width
+            repaint(area);
+        }
         @Override
         /**
          * Paints the shapes and handles transformations such as scaling and panning.
@@ -791,15 +896,34 @@ public class BasicFrameAWT extends JFrame {
             super.paintComponent(g);
             Graphics2D g2d = (Graphics2D) g;
             AffineTransform originalTransform = g2d.getTransform();
-            g2d.translate(translateX, translateY);
-            g2d.scale(scale, scale);
 
             setBackground(Color.WHITE);
+            // Blit the last rendered frame; the frame of the current view is rendered in the background
+            ViewState view = new ViewState(scale, translateX, translateY, getWidth(), getHeight());
+            renderEngine.requestFrame(view);
+            renderEngine.paint(g2d, view);
+            Rectangle2D viewport = new Rectangle2D.Double(-translateX / scale, -translateY / scale, getWidth() / scale, getHeight() / scale);
+            linkedLayer.setViewport(viewport);
+            databaseLayer.setViewport(viewport);
+
+            // The creation preview follows the mouse, so it is painted on top of the tiles on every frame
+            g2d.translate(translateX, translateY);
+            g2d.scale(scale, scale);
             for (ShapeManager manager : shapeManagers.values()) {
-                manager.paint(g2d);
+                manager.paintPreview(g2d);
             }
-            g2d.transform(originalTransform);
+            g2d.setTransform(originalTransform);
         }
 
+        private void updateShapes(Runnable update) {
+            // The render threads paint the shapes meanwhile, so they are only changed inside an update
+            ShapeManager shapeManager = currentShapeManager;
+            shapeManager.beginUpdate();
+            try {
+                update.run();
+            } finally {
+                shapeManager.endUpdate();
+            }
+        }
     }
 }
@@ -0,0 +1,195 @@
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+/**
+ * The `ConnectionPool` class keeps a few open connections to one database for reuse.
+ * <p>
+ * A connection is taken with `borrow()` and handed back with `release(Connection)` instead of being closed, so
+ * repeated imports and exports skip the connection setup, and the statements cached by the driver for a connection
+ * stay prepared. Idle connections are validated before they are lent again, and connections idle for longer than the
+ * idle timeout are closed by a background thread. If all connections are in use, `borrow()` waits for one.
+ * <p>
+ * Only the bookkeeping runs under the lock of the pool; connections are opened, validated, rolled back and closed
+ * outside of it, so a slow database never blocks the threads borrowing or releasing other connections.
+ */
+public class ConnectionPool implements AutoCloseable {
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+    private final String url;
+    private final String username;
+    private final String password;
+    private final int maxSize;// Maximum number of open connections, idle and borrowed
+    private final long idleTimeoutMillis;
+    private final Deque<IdleConnection> idleConnections = new ArrayDeque<>();// Most recently released first
+    private final ScheduledExecutorService evictor;
+    private int openConnections = 0;
+    private boolean closed = false;
+    /**
+     * Creates an empty pool; connections are opened when they are borrowed.
+     *
+     * @param url               the JDBC URL of the database.
+     * @param username          the database user.
+     * @param password          the password of the user.
+     * @param maxSize           the maximum number of open connections.
+     * @param idleTimeoutMillis the time after which an unused connection is closed.
+     */
+    public ConnectionPool(String url, String username, String password, int maxSize, long idleTimeoutMillis) {
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.maxSize = maxSize;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "connection-pool-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        evictor.scheduleWithFixedDelay(this::evictIdleConnections, idleTimeoutMillis / 2, idleTimeoutMillis / 2, TimeUnit.MILLISECONDS);
+    }
+    /**
+     * Checks whether the pool connects to a database with the given credentials.
+     *
+     * @param url      the JDBC URL of the database.
+     * @param username the database user.
+     * @param password the password of the user.
+     * @return true if the pool uses the same URL and credentials, false otherwise.
+     */
+    public boolean connectsTo(String url, String username, String password) {
+        return this.url.equals(url) && this.username.equals(username) && this.password.equals(password);
+    }
+    /**
+     * Creates an empty pool for the same database and credentials, e.g. for a background thread that must not wait
+     * for the connections of this pool.
+     *
+     * @param maxSize           the maximum number of open connections.
+     * @param idleTimeoutMillis the time after which an unused connection is closed.
+     * @return the new pool, independent of this one.
+     */
+    public ConnectionPool newPool(int maxSize, long idleTimeoutMillis) {
+        return new ConnectionPool(url, username, password, maxSize, idleTimeoutMillis);
+    }
+    /**
+     * Lends a connection, reusing an idle one if it is still valid.
+     *
+     * @return an open connection in auto-commit mode, to be handed back with `release`.
+     * @throws SQLException if no connection can be opened or the pool is closed.
+     */
+    public Connection borrow() throws SQLException {
+        IdleConnection idle;
+        while ((idle = takeIdleConnection()) != null) {
+            if (idle.connection.isValid(VALIDATION_TIMEOUT_SECONDS)) return idle.connection;
+            discard(idle.connection);// E.g. closed by the server after its own timeout
+        }
+        try {
+            return DriverManager.getConnection(url, username, password);
+        } catch (SQLException e) {
+            connectionClosed();
+            throw e;
+        }
+    }
+
+    private synchronized IdleConnection takeIdleConnection() throws SQLException {
+        // Returns null once a new connection may be opened, which is counted as open already
+        while (true) {
+            if (closed) throw new SQLException("The connection pool is closed");
+            IdleConnection idle = idleConnections.pollFirst();
+            if (idle != null) return idle;
+            if (openConnections < maxSize) {
+                openConnections++;
+                return null;
+            }
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrupted while waiting for a connection", e);
+            }
+        }
+    }
+    /**
+     * Hands a borrowed connection back; an open transaction is rolled back.
+     *
+     * @param connection the connection returned by `borrow`.
+     */
+    public void release(Connection connection) {
+        boolean reusable;
+        try {
+            reusable = !connection.isClosed();
+            if (reusable && !connection.getAutoCommit()) {
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            reusable = false;
+        }
+        synchronized (this) {
+            if (reusable && !closed) {
+                idleConnections.addFirst(new IdleConnection(connection, System.currentTimeMillis()));
+                notifyAll();
+                return;
+            }
+        }
+        discard(connection);
+    }
+
+    private void evictIdleConnections() {
+        List<Connection> expired = new ArrayList<>();
+        synchronized (this) {
+            long now = System.currentTimeMillis();
+            for (Iterator<IdleConnection> it = idleConnections.descendingIterator(); it.hasNext(); ) {
+                IdleConnection idle = it.next();
+                if (now - idle.releaseTime < idleTimeoutMillis) break;// The remaining ones have been released later
+                it.remove();
+                expired.add(idle.connection);
+            }
+        }
+        for (Connection connection : expired) discard(connection);
+    }
+
+    private void discard(Connection connection) {
+        connectionClosed();
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            // The connection is unusable anyway
+        }
+    }
+
+    private synchronized void connectionClosed() {
+        openConnections--;
+        notifyAll();
+    }
+    /**
+     * Closes all idle connections; borrowed connections are closed when they are released.
+     */
+    @Override
+    public void close() {
+        List<IdleConnection> idle;
+        synchronized (this) {
+            closed = true;
+            notifyAll();// Threads waiting for a connection fail
+            idle = new ArrayList<>(idleConnections);
+            idleConnections.clear();
+        }
+        evictor.shutdownNow();
+        for (IdleConnection connection : idle) discard(connection.connection);
+    }
+
+    private static class IdleConnection {
+        final Connection connection;
+        final long releaseTime;
+
+        IdleConnection(Connection connection, long releaseTime) {
+            this.connection = connection;
+            this.releaseTime = releaseTime;
+        }
+    }
+}
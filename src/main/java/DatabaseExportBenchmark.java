@@ -0,0 +1,232 @@
+import projectComponents.ActionMode;
+import projectComponents.CSVShapeReader;
+import projectComponents.DatabaseLayer;
+import projectComponents.ObjectSource;
+import projectComponents.PolygonManager;
+import projectComponents.ShapeManager;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.MouseEvent;
+import java.awt.geom.Rectangle2D;
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+/**
+ * The `DatabaseExportBenchmark` class measures the throughput of exporting shapes with the `DatabaseManager`.
+ * <p>
+ * {@value #ROWS} CSV rows are inserted through an `ObjectWriter`, once with a batch size of 1, which sends every row
+ * on its own like the former export, and once with batches of {@value #BATCH_SIZE} rows. By default the rows are
+ * inserted into an embedded H2 database in MySQL mode, so the benchmark runs without a database server; any other
+ * JDBC URL, e.g. of a local MySQL database with `rewriteBatchedStatements=true`, may be given instead. The benchmark
+ * also checks that a failed export is rolled back, measures streaming the rows back into a manager and checks that a
+ * bounding-box query returns exactly the intersecting rows. Finally a `DatabaseLayer` is linked to the table and
+ * moved between two viewports, checking that it loads the rows around each viewport and queries no tile twice, and
+ * a polygon manager is synchronized with the table before and after moving one polygon, checking that the second
+ * synchronization only updates its row. It is executed through the `main` method and provides console output for
+ * each step.
+ */
+public class DatabaseExportBenchmark {
+    private static final int ROWS = 100_000;
+    private static final int BATCH_SIZE = 1000;
+    /**
+     * The entry point for the benchmark.
+     *
+     * @param args the JDBC URL, user and password of the database, an in-memory H2 database if not given.
+     * @throws Exception if the database cannot be used.
+     */
+    public static void main(String[] args) throws Exception {
+        String url = args.length > 0 ? args[0] : "jdbc:h2:mem:graphical_objects;MODE=MySQL;DB_CLOSE_DELAY=-1";
+        String user = args.length > 1 ? args[1] : "sa";
+        String password = args.length > 2 ? args[2] : "";
+
+        try (Connection connection = DriverManager.getConnection(url, user, password)) {
+            DatabaseManager databaseManager = new DatabaseManager();
+            databaseManager.connect(url, user, password);
+
+            double[] rowsPerSecond = new double[2];
+            int[] batchSizes = {1, BATCH_SIZE};
+            for (int i = 0; i < batchSizes.length; i++) {
+                databaseManager.setBatchSize(batchSizes[i]);
+                export(databaseManager, ROWS / 10);// Warm-up
+                long start = System.nanoTime();
+                export(databaseManager, ROWS);
+                rowsPerSecond[i] = ROWS / ((System.nanoTime() - start) / 1e9);
+                System.out.printf("Batch size %d: %.0f rows/s%n", batchSizes[i], rowsPerSecond[i]);
+            }
+            if (countRows(connection) == ROWS && rowsPerSecond[1] > rowsPerSecond[0]) {
+                System.out.println("Step 1 Passed: batched inserts are faster than single inserts.");
+            } else {
+                System.err.println("Step 1 Failed: batched inserts are not faster or rows are missing.");
+            }
+
+            // A malformed row in the middle of an export must leave the previous rows untouched
+            try (DatabaseManager.ObjectWriter writer = databaseManager.objectWriter()) {
+                databaseManager.clearTable();
+                writer.write("Point,(1 2)\nmalformed\nPoint,(3 4)\n");
+                writer.commit();
+            } catch (IOException e) {
+                // Expected
+            }
+            if (countRows(connection) == ROWS) {
+                System.out.println("Step 2 Passed: the failed export has been rolled back.");
+            } else {
+                System.err.println("Step 2 Failed: the failed export has changed the table.");
+            }
+
+            long start = System.nanoTime();
+            long importedRows;
+            try (InputStream input = databaseManager.objectReader()) {
+                importedRows = new CSVShapeReader(input, Map.<String, ShapeManager>of("Polygon", new PolygonManager())).read();
+            }
+            System.out.printf("Streamed %d rows into the manager: %.0f rows/s%n", importedRows,
+                    importedRows / ((System.nanoTime() - start) / 1e9));
+            if (importedRows == ROWS) {
+                System.out.println("Step 3 Passed: all rows have been imported.");
+            } else {
+                System.err.println("Step 3 Failed: rows are missing from the import.");
+            }
+
+            // The polygon of row i spans x from i to i + 30, so rows 970 to 1100 intersect the area
+            start = System.nanoTime();
+            long areaRows;
+            try (InputStream input = databaseManager.objectReader(new Rectangle2D.Double(1000, 5, 100, 10))) {
+                areaRows = new CSVShapeReader(input, Map.<String, ShapeManager>of("Polygon", new PolygonManager())).read();
+            }
+            System.out.printf("Queried %d rows inside the area in %.1f ms%n", areaRows, (System.nanoTime() - start) / 1e6);
+            if (areaRows == 131) {
+                System.out.println("Step 4 Passed: the bounding-box query returns the intersecting rows.");
+            } else {
+                System.err.println("Step 4 Failed: the bounding-box query returns " + areaRows + " rows instead of 131.");
+            }
+
+            // The viewport and its margin span x from 950 to 1150, inside the 128 wide tiles from 896 to 1152,
+            // which hold rows 866 to 1152; the second viewport holds as many rows
+            CountingSource source = new CountingSource(databaseManager.objectSource());
+            DatabaseLayer layer = new DatabaseLayer(e -> System.err.println(e.getMessage()));
+            Rectangle2D viewport = new Rectangle2D.Double(1000, 0, 100, 20);
+            start = System.nanoTime();
+            SwingUtilities.invokeAndWait(() -> {
+                layer.link(source);
+                layer.setViewport(viewport);
+            });
+            boolean loaded = awaitObjectCount(layer, 287);
+            System.out.printf("Loaded the tiles around the viewport in %.1f ms%n", (System.nanoTime() - start) / 1e6);
+            SwingUtilities.invokeAndWait(() -> layer.setViewport(new Rectangle2D.Double(50_000, 0, 100, 20)));
+            loaded &= awaitObjectCount(layer, 2 * 287);
+            int queries = source.queries.get();
+            SwingUtilities.invokeAndWait(() -> layer.setViewport(viewport));
+            Thread.sleep(100);
+            if (loaded && source.queries.get() == queries) {
+                System.out.println("Step 5 Passed: the layer loads the tiles around the viewport and reuses cached tiles.");
+            } else {
+                System.err.println("Step 5 Failed: the layer holds " + layer.getObjectCount() + " objects after "
+                        + source.queries.get() + " queries.");
+            }
+            SwingUtilities.invokeAndWait(layer::unlink);
+
+            // The first synchronization replaces the rows written above, the second one only updates the moved polygon
+            PolygonManager polygons = new PolygonManager();
+            double[] coordinates = new double[6 * ROWS];
+            int[] partOffsets = new int[ROWS];
+            for (int row = 0; row < ROWS; row++) {
+                double[] triangle = {row, 0, row + 30, 0, row + 30, 20};
+                System.arraycopy(triangle, 0, coordinates, 6 * row, 6);
+                partOffsets[row] = 3 * row;
+            }
+            polygons.addShapes(coordinates, partOffsets);
+            List<ShapeManager> shapeManagers = List.of(polygons);
+            start = System.nanoTime();
+            int fullChanges = databaseManager.synchronize(shapeManagers);
+            double fullMillis = (System.nanoTime() - start) / 1e6;
+            movePolygon(polygons, new Point(10, 1), new Point(10, 6));
+            start = System.nanoTime();
+            int changes = databaseManager.synchronize(shapeManagers);
+            double incrementalMillis = (System.nanoTime() - start) / 1e6;
+            System.out.printf("Synchronized %d rows in %.1f ms, then %d changed row in %.1f ms%n", fullChanges, fullMillis,
+                    changes, incrementalMillis);
+            if (fullChanges == ROWS && changes == 1 && countRows(connection) == ROWS
+                    && countRows(connection, "min_y = 5") == 1 && incrementalMillis < fullMillis) {
+                System.out.println("Step 6 Passed: saving again only writes the moved polygon.");
+            } else {
+                System.err.println("Step 6 Failed: the second synchronization writes " + changes + " rows.");
+            }
+            databaseManager.abortConnection();
+        }
+    }
+
+    private static void export(DatabaseManager databaseManager, int rows) throws IOException {
+        try (DatabaseManager.ObjectWriter writer = databaseManager.objectWriter()) {
+            databaseManager.clearTable();
+            for (int row = 0; row < rows; row++) {
+                writer.write("Polygon,(" + row + " 0) (" + (row + 30) + " 0) (" + (row + 30) + " 20) \n");
+            }
+            writer.commit();
+        }
+    }
+
+    private static void movePolygon(PolygonManager polygons, Point from, Point to) {
+        // Selects the polygon and drags it like the user would
+        JPanel panel = new JPanel();
+        polygons.setCurrentMode(ActionMode.SELECT);
+        polygons.setMouseClickedBehaviour(new MouseEvent(panel, MouseEvent.MOUSE_CLICKED, 0, 0, from.x, from.y, 1, false));
+        polygons.setCurrentMode(ActionMode.MOVE);
+        polygons.setMousePressedBehaviour(new MouseEvent(panel, MouseEvent.MOUSE_PRESSED, 0, 0, from.x, from.y, 1, false));
+        polygons.setMouseDraggedBehaviour(new MouseEvent(panel, MouseEvent.MOUSE_DRAGGED, 0, 0, to.x, to.y, 1, false));
+        polygons.setMouseReleasedBehaviour(new MouseEvent(panel, MouseEvent.MOUSE_RELEASED, 0, 0, to.x, to.y, 1, false));
+    }
+
+    private static boolean awaitObjectCount(DatabaseLayer layer, int objectCount) throws Exception {
+        int[] cached = new int[1];
+        for (int attempt = 0; attempt < 500; attempt++) {
+            SwingUtilities.invokeAndWait(() -> cached[0] = layer.getObjectCount());
+            if (cached[0] == objectCount) return true;
+            Thread.sleep(10);
+        }
+        return false;
+    }
+
+    private static class CountingSource implements ObjectSource {
+        final ObjectSource source;
+        final AtomicInteger queries = new AtomicInteger();// Tiles queried by the layer
+
+        CountingSource(ObjectSource source) {
+            this.source = source;
+        }
+
+        @Override
+        public void readObjects(Rectangle2D area, int maxObjects, ObjectConsumer consumer) throws IOException {
+            queries.incrementAndGet();
+            source.readObjects(area, maxObjects, consumer);
+        }
+
+        @Override
+        public void setChangeListener(Runnable listener) {
+            source.setChangeListener(listener);
+        }
+
+        @Override
+        public void close() throws IOException {
+            source.close();
+        }
+    }
+
+    private static int countRows(Connection connection) throws SQLException {
+        return countRows(connection, "1 = 1");
+    }
+
+    private static int countRows(Connection connection, String condition) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM object_description WHERE " + condition)) {
+            resultSet.next();
+            return resultSet.getInt(1);
+        }
+    }
+}
@@ -1,27 +1,81 @@
+import projectComponents.CSVShapeReader;
+import projectComponents.DescriptionParser;
+import projectComponents.ObjectSource;
+import projectComponents.ShapeIndex;
+import projectComponents.ShapeManager;
+import projectComponents.SyncWriter;
+
 import javax.swing.*;
+import java.awt.geom.Rectangle2D;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.ArrayList;
+import java.sql.Statement;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.LongStream;
 /**
  * The `DatabaseManager` class handles interactions with a MySQL database.
  * It provides methods to establish connections, insert and retrieve data,
  * and manage a table for graphical object descriptions.
+ * <p>
+ * Every object is stored with a generated id and its bounding box in the `min_x`, `min_y`, `max_x` and `max_y`
+ * columns, which are indexed, so the objects inside an area can be read without scanning and parsing the whole table.
+ * The geometry itself stays in the text `description` column instead of a WKB `GEOMETRY` column with a spatial index:
+ * the same table is read by MySQL and by the embedded database of the benchmark, whose spatial types and index
+ * syntax differ, and the description is the CSV format every import and export reads and writes. Descriptions are
+ * parsed by a `DescriptionParser` wherever they are read. The B-tree index on `(min_x, min_y)` only narrows the
+ * query to the objects starting at most the width of the widest object left of the area, so a table holding a few
+ * very wide objects is scanned along a much larger part of its index.
+ * Tables of earlier versions, which only have the type and description columns, are extended when connecting for an
+ * export, and the bounds of all rows still missing them are computed in one transaction; importing never changes the
+ * table. Rows whose description has no bounds, e.g. because of an invalid number, get the bounds {@value #NO_BOUNDS},
+ * which no area query matches, so NULL bounds only mark rows not computed yet and are looked up in the index.
+ * <p>
+ * The shapes of the managers are exported with `synchronize`, which applies only the edits made since the previous
+ * export to the same database, using the stable ids of the shapes as the ids of their rows. A table imported into an
+ * empty scene with `importObjects` counts as synchronized, so its shapes keep the ids of their rows.
  */
 
 public class DatabaseManager {
+    private static final int DEFAULT_BATCH_SIZE = 1000;
+    private static final int POOL_SIZE = 4;
+    private static final long IDLE_TIMEOUT_MILLIS = 10 * 60 * 1000;
+    private static final int UNKNOWN_DATABASE = 1049;// MySQL error code of a missing database
+    private static final int FETCH_SIZE = 1000;// Rows fetched at once by drivers without row streaming
+    private static final String CONNECTION_OPTIONS = "?useSSL=false&allowPublicKeyRetrieval=true"
+            + "&rewriteBatchedStatements=true&useServerPrepStmts=true&cachePrepStmts=true"
+            + "&prepStmtCacheSize=64&prepStmtCacheSqlLimit=2048";// Batches as multi-row inserts, statements prepared once per connection
+    private static final double NO_BOUNDS = Double.MAX_VALUE;// All four bounds of objects whose description has none
+    private static final String AREA_CONDITION = " WHERE min_x BETWEEN ? AND ? AND min_y <= ? AND max_x >= ? AND max_y >= ?";// Objects intersecting an area, see getAreaParameters
     private String dbName = "graphical_objects";
     private final String tableName = "object_description";
     private final String username = "root";
     private Connection connection;
+    private boolean pooledConnection = false;// Whether the connection is handed back to the pool when it is released
+    private ConnectionPool pool;// Connections to the current database, kept open between imports and exports
+    private String connectionUrl;// JDBC URL of the current database
+    private String syncedUrl;// JDBC URL of the database last synchronized with the shapes, null if its table may differ from them
     private boolean isConnected = false;
+    private int batchSize = DEFAULT_BATCH_SIZE;// Rows sent to the database in one batch
+    private Double maxObjectWidth = null;// Largest width of a stored object, null if it has to be queried again
+    private final AtomicInteger tableChanges = new AtomicInteger();// Counts the changes of the table, see tableChanged
+    private final List<Runnable> changeListeners = new CopyOnWriteArrayList<>();// Listeners of the sources opened with objectSource()
 
     /**
      * Establishes a connection to the database for exporting data.
      * If the specified database does not exist, it creates the database and initializes the table.
+     * The connection is taken from a pool, so connecting again to the same database reuses an open connection.
      *
      * @param dbName   the name of the database to connect to (if null or empty, a default name is used).
      * @param password the password for the database user.
@@ -29,28 +83,182 @@ public class DatabaseManager {
     public void exportConnect(String dbName, String password) {
         if (dbName != null && (!dbName.trim().isEmpty())) this.dbName = dbName;
         else this.dbName = "graphical_objects";
-        
+
         try {
-            String jdbcUrl = "jdbc:mysql://localhost:3306/?useSSL=false&allowPublicKeyRetrieval=true";
-            connection = DriverManager.getConnection(jdbcUrl, username, password);
-            String sqlCreateDB = "CREATE DATABASE IF NOT EXISTS " + this.dbName;
-            connection.createStatement().executeUpdate(sqlCreateDB);
+            try {
+                borrowConnection(password);
+            } catch (SQLException e) {
+                if (e.getErrorCode() != UNKNOWN_DATABASE) throw e;
+                createDatabase(password);
+                borrowConnection(password);
+            }
+            createTable();
+            isConnected = true;
+        } catch (SQLException e) {
+            abortConnection();
+        }
+    }
+    private void borrowConnection(String password) throws SQLException {
+        borrowConnection(getDBurl(this.dbName), username, password == null ? "" : password);
+    }
 
-            connection = DriverManager.getConnection(getDBurl(this.dbName), username, password);
+    private void borrowConnection(String url, String user, String password) throws SQLException {
+        abortConnection();
+        if (pool != null && !pool.connectsTo(url, user, password)) {
+            pool.close();
+            pool = null;
+        }
+        if (pool == null) pool = new ConnectionPool(url, user, password, POOL_SIZE, IDLE_TIMEOUT_MILLIS);
+        connection = pool.borrow();
+        pooledConnection = true;
+        connectionUrl = url;
+    }
 
-            String createTableSQL = "CREATE TABLE IF NOT EXISTS " + this.tableName + " (" +
-                                "type VARCHAR(15) NOT NULL, " + 
-                                "description TEXT NOT NULL" +
+    private void createDatabase(String password) throws SQLException {
+        // Only needed once per database, so this connection is not pooled
+        try (Connection serverConnection = DriverManager.getConnection(getDBurl(""), username, password)) {
+            serverConnection.createStatement().executeUpdate("CREATE DATABASE IF NOT EXISTS " + this.dbName);
+        }
+    }
+    /**
+     * Connects to the database with the given JDBC URL for exporting and importing data, e.g. to an embedded database
+     * standing in for MySQL, and creates or migrates the table like `exportConnect`. The connection is taken from a
+     * pool like the ones of `exportConnect` and `importConnect`.
+     *
+     * @param url      the JDBC URL of the database.
+     * @param user     the database user.
+     * @param password the password of the user.
+     * @throws SQLException if the database cannot be connected or the table cannot be created.
+     */
+    public void connect(String url, String user, String password) throws SQLException {
+        try {
+            borrowConnection(url, user, password);
+            createTable();
+            isConnected = true;
+        } catch (SQLException e) {
+            abortConnection();
+            throw e;
+        }
+    }
+
+    private void createTable() throws SQLException {
+        tableChanged();
+        if (!canQuery("SELECT * FROM " + tableName + " WHERE 1 = 0")) {
+            String createTableSQL = "CREATE TABLE " + this.tableName + " (" +
+                                "id BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY, " +
+                                "type VARCHAR(15) NOT NULL, " +
+                                "description TEXT NOT NULL, " +
+                                "min_x DOUBLE, min_y DOUBLE, max_x DOUBLE, max_y DOUBLE" +
                                 ");";
             connection.createStatement().executeUpdate(createTableSQL);
-            isConnected = true;
+            connection.createStatement().executeUpdate("CREATE INDEX object_bounds ON " + tableName + " (min_x, min_y)");
+        } else {
+            if (!canQuery("SELECT min_x FROM " + tableName + " WHERE 1 = 0")) addBoundsColumns();
+            if (hasMissingBounds()) computeMissingBounds();
+        }
+    }
+
+    private boolean canQuery(String sql) {
+        try (Statement statement = connection.createStatement()) {
+            statement.executeQuery(sql).close();
+            return true;
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void addBoundsColumns() throws SQLException {
+        // The objects of a table without ids and bounds get both, the bounds are filled in by computeMissingBounds
+        try (Statement statement = connection.createStatement()) {
+            if (!canQuery("SELECT id FROM " + tableName + " WHERE 1 = 0")) {
+                statement.executeUpdate("ALTER TABLE " + tableName + " ADD COLUMN id BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY FIRST");
+            }
+            statement.executeUpdate("ALTER TABLE " + tableName + " ADD COLUMN (min_x DOUBLE, min_y DOUBLE, max_x DOUBLE, max_y DOUBLE)");
+            statement.executeUpdate("CREATE INDEX object_bounds ON " + tableName + " (min_x, min_y)");
+        }
+    }
+
+    private boolean hasMissingBounds() throws SQLException {
+        // Only looks up the index, so checking on every export connect is cheap
+        try (Statement statement = connection.createStatement()) {
+            statement.setMaxRows(1);
+            try (ResultSet resultSet = statement.executeQuery("SELECT id FROM " + tableName + " WHERE min_x IS NULL")) {
+                return resultSet.next();
+            }
+        }
+    }
+
+    private void computeMissingBounds() throws SQLException {
+        // Completes an interrupted migration, too; rows without valid bounds are marked with NO_BOUNDS
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try (Statement query = connection.createStatement();
+             ResultSet resultSet = query.executeQuery("SELECT id, type, description FROM " + tableName + " WHERE min_x IS NULL");
+             PreparedStatement update = connection.prepareStatement(
+                     "UPDATE " + tableName + " SET min_x = ?, min_y = ?, max_x = ?, max_y = ? WHERE id = ?")) {
+            int batchedRows = 0;
+            while (resultSet.next()) {
+                double[] bounds;
+                try {
+                    bounds = getBounds(resultSet.getString(2), resultSet.getString(3));
+                } catch (NumberFormatException e) {
+                    bounds = null;
+                }
+                setBounds(update, 1, bounds);
+                update.setLong(5, resultSet.getLong(1));
+                update.addBatch();
+                if (++batchedRows == batchSize) {
+                    update.executeBatch();
+                    batchedRows = 0;
+                }
+            }
+            update.executeBatch();
+            connection.commit();
         } catch (SQLException e) {
-            connection = null;
-            isConnected = false;
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+    /**
+     * Computes the bounding box of an object from its description, e.g. `(10 20) (30 40)` for a polygon or
+     * `10.0 20.0 5.0` for a circle.
+     *
+     * @param type        the type of the object.
+     * @param description the description of the object.
+     * @return the minimum x, minimum y, maximum x and maximum y, or null for unknown types and missing values.
+     * @throws NumberFormatException if the description holds an invalid number.
+     */
+    private static double[] getBounds(String type, String description) {
+        DescriptionParser parser = new DescriptionParser();
+        parser.parse(description);
+        return parser.getBounds(type);
+    }
+
+    private static void setRow(PreparedStatement statement, int firstIndex, String line) throws SQLException {
+        // Sets the type, the description and the four bounds
+        int comma = line.indexOf(',');
+        if (comma < 0) throw new SQLException("The row has no description: " + line);
+        String type = line.substring(0, comma).trim();
+        String description = line.substring(comma + 1).trim();
+        try {
+            statement.setString(firstIndex, type);
+            statement.setString(firstIndex + 1, description);
+            setBounds(statement, firstIndex + 2, getBounds(type, description));
+        } catch (NumberFormatException e) {
+            throw new SQLException("The row has an invalid number: " + line);
+        }
+    }
+
+    private static void setBounds(PreparedStatement statement, int firstIndex, double[] bounds) throws SQLException {
+        for (int i = 0; i < 4; i++) {
+            statement.setDouble(firstIndex + i, bounds == null ? NO_BOUNDS : bounds[i]);
         }
     }
     /**
      * Establishes a connection to the database for importing data.
+     * The connection is taken from a pool, so connecting again to the same database reuses an open connection.
      *
      * @param dbName   the name of the database to connect to (if null or empty, a default name is used).
      * @param password the password for the database user.
@@ -61,80 +269,568 @@ public class DatabaseManager {
         else this.dbName = "graphical_objects";
         
         try {
-            connection = DriverManager.getConnection(getDBurl(this.dbName), username, password);
-
+            borrowConnection(password);
+            // Reading never changes the table, it is created or migrated by the next export
+            maxObjectWidth = null;
             isConnected = true;
         } catch (SQLException e) {
-            connection = null;
-            isConnected = false;
+            abortConnection();
         }
     }
     /**
-     * Closes the current database connection, if any.
-     * Ensures proper resource cleanup.
+     * Releases the current database connection, if any.
+     * A pooled connection is handed back to the pool and stays open for the next import or export.
      */
     public void abortConnection() {
-        if (connection != null) {
-            try {
-                connection.close();
-                connection = null;
-                this.isConnected = false;
-            } catch (SQLException e) {
-                JOptionPane.showMessageDialog(null, e.getMessage());
-            }
-        }
+        if (connection != null && pooledConnection) pool.release(connection);
+        connection = null;
+        pooledConnection = false;
+        this.isConnected = false;
+    }
+    /**
+     * Releases the current connection and closes the pool with all its idle connections and its evictor thread, e.g.
+     * when the application is closed. The next connect opens a new pool.
+     */
+    public void close() {
+        abortConnection();
+        if (pool != null) pool.close();
+        pool = null;
     }
     /**
      * Inserts object data into the database.
      * Each line of the input string represents an object with its type and description.
+     * All lines are inserted in batches inside one transaction, so either all or none of them are stored.
      *
      * @param objectInfo a string containing object data in the format "type,description" per line.
      */
     public void insertObject(String objectInfo) {
-        String[] lines = objectInfo.trim().split("\n");
-        for (String line : lines) {
+        try (ObjectWriter writer = objectWriter()) {
+            writer.write(objectInfo);
+            writer.write('\n');
+            writer.commit();
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(null, e.getMessage());
+        }
+    }
+    /**
+     * Sets the number of rows sent to the database in one batch by the writers created afterwards.
+     *
+     * @param batchSize the number of rows per batch, at least 1.
+     */
+    public void setBatchSize(int batchSize) {
+        if (batchSize < 1) throw new IllegalArgumentException("The batch size must be positive");
+        this.batchSize = batchSize;
+    }
+    /**
+     * Starts a transaction and creates a writer that inserts every row written to it into the database, for exporting
+     * the shapes with the `writeCSV` methods of the managers without building their whole CSV text first.
+     * The rows are inserted with one prepared statement in batches, which the MySQL driver sends as multi-row inserts.
+     * Other statements run on this manager until the writer is closed, e.g. `clearTable()`, are part of the transaction.
+     *
+     * @return a writer accepting rows in the format "type,description"; the rows are only stored once `commit()` is
+     *         called, closing the writer without it rolls them back.
+     * @throws IOException if the transaction cannot be started.
+     */
+    public ObjectWriter objectWriter() throws IOException {
+        try {
+            return new ObjectWriter();
+        } catch (SQLException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+    /**
+     * The `ObjectWriter` class inserts the rows written to it into the database table inside one transaction.
+     * <p>
+     * Each row is added to the batch as soon as its line break has been written, and the batch is executed whenever
+     * it holds the configured number of rows. If a batch fails, the transaction is rolled back and the error is
+     * thrown by the write or `commit()` call that executed it.
+     */
+    public class ObjectWriter extends Writer {
+        private final PreparedStatement statement;
+        private final boolean autoCommit;// Mode of the connection before the transaction, restored on close
+        private final StringBuilder row = new StringBuilder();// Characters of the current row
+        private int batchedRows = 0;
+        private boolean finished = false;// Whether the transaction has been committed or rolled back
+
+        private ObjectWriter() throws SQLException {
+            autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
             try {
-                String[] data = line.trim().split(",");
-                String type = data[0].trim();
-                String description = data[1].trim();
+                statement = connection.prepareStatement("INSERT INTO " + tableName
+                        + " (type, description, min_x, min_y, max_x, max_y) VALUES (?, ?, ?, ?, ?, ?)");
+            } catch (SQLException e) {
+                connection.setAutoCommit(autoCommit);
+                throw e;
+            }
+        }
+
+        @Override
+        public void write(char[] chars, int offset, int length) throws IOException {
+            if (finished) throw new IOException("The transaction has already ended");
+            for (int i = offset; i < offset + length; i++) {
+                if (chars[i] == '\n') addRow();
+                else row.append(chars[i]);
+            }
+        }
+
+        private void addRow() throws IOException {
+            String line = row.toString().trim();
+            row.setLength(0);
+            if (line.isEmpty()) return;
+
+            try {
+                setRow(statement, 1, line);
+                statement.addBatch();
+                if (++batchedRows == batchSize) executeBatch();
+            } catch (SQLException e) {
+                throw fail(e);
+            }
+        }
+
+        private void executeBatch() throws SQLException {
+            if (batchedRows > 0) statement.executeBatch();
+            batchedRows = 0;
+        }
+        /**
+         * Inserts the remaining rows and commits the transaction.
+         *
+         * @throws IOException if the rows cannot be inserted; the transaction is rolled back then.
+         */
+        public void commit() throws IOException {
+            if (finished) throw new IOException("The transaction has already ended");
+            try {
+                if (!row.isEmpty()) addRow();
+                executeBatch();
+                connection.commit();
+                finished = true;
+                tableChanged();
+                syncedUrl = null;// The rows have no shape ids
+            } catch (SQLException e) {
+                throw fail(e);
+            }
+        }
 
-                String sqlInsert = "INSERT INTO " + tableName + " (type, description) VALUES (?, ?)";
-                PreparedStatement statement = connection.prepareStatement(sqlInsert);
-                statement.setString(1, type);
-                statement.setString(2, description);
-    
-                statement.executeUpdate();
-            } catch (Exception e) {
-                JOptionPane.showMessageDialog(null, e.getMessage());
+        private IOException fail(SQLException cause) {
+            rollback();
+            return new IOException(cause.getMessage(), cause);
+        }
+
+        private void rollback() {
+            if (finished) return;
+            finished = true;
+            try {
+                connection.rollback();
+            } catch (SQLException e) {
+                // The original error is more useful, and the connection discards the transaction when it is closed
+            }
+        }
+
+        @Override
+        public void flush() {
+        }
+        /**
+         * Ends the transaction, rolling it back unless it has been committed, and restores the auto-commit mode.
+         *
+         * @throws IOException if the statement cannot be closed.
+         */
+        @Override
+        public void close() throws IOException {
+            rollback();
+            try {
+                statement.close();
+                connection.setAutoCommit(autoCommit);
+            } catch (SQLException e) {
+                throw new IOException(e.getMessage(), e);
             }
         }
     }
     /**
-     * Retrieves all objects from the database table.
+     * Synchronizes the database table with the shapes of the given managers inside one transaction.
+     * <p>
+     * If the shapes have been synchronized with the current database before, only the rows of the shapes added,
+     * moved or removed since then are inserted, updated or deleted, in batches, so saving a large scene again costs
+     * time proportional to the number of edits. Otherwise the table is cleared and all shapes are inserted. The rows
+     * are identified by the ids of the shapes, so the table must not be changed by others between two
+     * synchronizations; changes made through this manager, e.g. by `clearTable()` or an `ObjectWriter`, make the next
+     * synchronization insert all shapes again.
      *
-     * @return a list of strings, where each string represents an object in the format "type,description".
+     * @param shapeManagers the managers of the shapes.
+     * @return the number of rows inserted, updated or deleted.
+     * @throws IOException if the table cannot be changed; the transaction is rolled back then.
      */
+    public int synchronize(Collection<ShapeManager> shapeManagers) throws IOException {
+        try (ChangeWriter writer = new ChangeWriter()) {
+            if (syncedUrl == null || !syncedUrl.equals(connectionUrl)) {
+                syncedUrl = null;
+                writer.clearTable();
+                for (ShapeManager shapeManager : shapeManagers) shapeManager.markUnsynced();
+            }
+            for (ShapeManager shapeManager : shapeManagers) shapeManager.writeChanges(writer);
+            writer.commit();
+            for (ShapeManager shapeManager : shapeManagers) shapeManager.markSynced();
+            syncedUrl = connectionUrl;
+            tableChanged();
+            return writer.changes;
+        } catch (SQLException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
 
-    public List<String> getAllObjects() {
-        List<String> objects = new ArrayList<>();
-        String sqlQuery = "SELECT * FROM " + tableName;
+    private class ChangeWriter implements SyncWriter, AutoCloseable {
+        private final boolean autoCommit;// Mode of the connection before the transaction, restored on close
+        private final PreparedStatement insert;
+        private final PreparedStatement update;
+        private final PreparedStatement delete;
+        private int batchedRows = 0;// Rows added to the batches of all three statements
+        private int changes = 0;
+        private boolean committed = false;
+
+        private ChangeWriter() throws SQLException {
+            autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                // Both statements take the type, the description, the bounds and the id in the same order
+                insert = connection.prepareStatement("INSERT INTO " + tableName
+                        + " (type, description, min_x, min_y, max_x, max_y, id) VALUES (?, ?, ?, ?, ?, ?, ?)");
+                update = connection.prepareStatement("UPDATE " + tableName
+                        + " SET type = ?, description = ?, min_x = ?, min_y = ?, max_x = ?, max_y = ? WHERE id = ?");
+                delete = connection.prepareStatement("DELETE FROM " + tableName + " WHERE id = ?");
+            } catch (SQLException e) {
+                connection.setAutoCommit(autoCommit);
+                throw e;
+            }
+        }
 
-        try (PreparedStatement statement = connection.prepareStatement(sqlQuery);
-             ResultSet resultSet = statement.executeQuery()) {
+        @Override
+        public void insert(long id, CharSequence row) throws IOException {
+            addRow(insert, id, row);
+        }
 
-            while (resultSet.next()) {
-                String type = resultSet.getString("type");
-                String description = resultSet.getString("description");
+        @Override
+        public void update(long id, CharSequence row) throws IOException {
+            addRow(update, id, row);
+        }
 
-                String objectInfo = String.format("%s,%s", type, description);
-                objects.add(objectInfo);
+        @Override
+        public void delete(long id) throws IOException {
+            try {
+                delete.setLong(1, id);
+                addBatch(delete);
+            } catch (SQLException e) {
+                throw new IOException(e.getMessage(), e);
             }
+        }
+
+        private void addRow(PreparedStatement statement, long id, CharSequence row) throws IOException {
+            try {
+                setRow(statement, 1, row.toString().trim());
+                statement.setLong(7, id);
+                addBatch(statement);
+            } catch (SQLException e) {
+                throw new IOException(e.getMessage(), e);
+            }
+        }
+
+        private void addBatch(PreparedStatement statement) throws SQLException {
+            statement.addBatch();
+            changes++;
+            if (++batchedRows == batchSize) executeBatches();
+        }
+
+        private void executeBatches() throws SQLException {
+            // The ids of removed shapes are never given again, so the order of the statements does not matter
+            if (batchedRows == 0) return;
+            delete.executeBatch();
+            insert.executeBatch();
+            update.executeBatch();
+            batchedRows = 0;
+        }
+
+        void clearTable() throws SQLException {
+            try (Statement statement = connection.createStatement()) {
+                statement.executeUpdate("DELETE FROM " + tableName);
+            }
+        }
 
+        void commit() throws SQLException {
+            executeBatches();
+            connection.commit();
+            committed = true;
+        }
+
+        @Override
+        public void close() throws SQLException {
+            try {
+                if (!committed) connection.rollback();
+                insert.close();
+                update.close();
+                delete.close();
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+    }
+    /**
+     * Opens a stream of all objects in the database table as CSV rows, for importing them with a `CSVShapeReader`.
+     * The rows are streamed from the database while the stream is read, so a large table is never held in memory;
+     * the connection must not be used for other statements until the stream is closed.
+     *
+     * @return a stream of UTF-8 encoded rows in the format "type,description", starting with a header row.
+     * @throws IOException if the query fails.
+     */
+    public ObjectReader objectReader() throws IOException {
+        try {
+            return new ObjectReader("SELECT type, description FROM " + tableName);
         } catch (SQLException e) {
-            JOptionPane.showMessageDialog(null, e.getMessage());
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+    /**
+     * Imports all objects of the database table into the managers, like a `CSVShapeReader` reading `objectReader()`.
+     * If the managers were empty, the shapes keep the ids of their rows and count as synchronized with the table, so
+     * the next `synchronize` with this database only writes the edits made after the import. Otherwise, or if the
+     * rows cannot be matched with the shapes, the next `synchronize` inserts all shapes again.
+     *
+     * @param shapeManagers the managers the shapes are added to, by shape type.
+     * @return the number of rows read.
+     * @throws IOException if the query fails or a row is malformed.
+     */
+    public long importObjects(Map<String, ShapeManager> shapeManagers) throws IOException {
+        boolean emptyScene = shapeManagers.values().stream().allMatch(ShapeManager::isEmpty);
+        // Tables of earlier versions have no ids until they are migrated by an export
+        boolean withIds = emptyScene && canQuery("SELECT id FROM " + tableName + " WHERE 1 = 0");
+        Map<String, LongStream.Builder> rowIds = new HashMap<>();
+        long rows;
+        try (ObjectReader input = withIds
+                ? new ObjectReader(rowIds, "SELECT type, description, id FROM " + tableName)
+                : new ObjectReader("SELECT type, description FROM " + tableName)) {
+            rows = new CSVShapeReader(input, shapeManagers).read();
+            // Also the rows without a shape keep their ids, so the shapes added later must not take them
+            ShapeIndex.reserveIds(input.maxRowId);
+        } catch (SQLException e) {
+            throw new IOException(e.getMessage(), e);
         }
+        if (!emptyScene) return rows;// The shapes drawn before are still synchronized with their own table
 
-        return objects;
+        boolean adopted = withIds;
+        for (Map.Entry<String, ShapeManager> entry : shapeManagers.entrySet()) {
+            LongStream.Builder ids = rowIds.get(entry.getKey());
+            if (adopted) adopted = entry.getValue().adoptRowIds(ids == null ? new long[0] : ids.build().toArray());
+        }
+        if (adopted) {
+            syncedUrl = connectionUrl;
+        } else {
+            syncedUrl = null;
+            for (ShapeManager shapeManager : shapeManagers.values()) shapeManager.markUnsynced();
+        }
+        return rows;
+    }
+    /**
+     * Opens a stream of the objects whose bounding boxes intersect an area, like `objectReader()`.
+     * <p>
+     * The objects are looked up by the index on their minimum coordinates: an object can only intersect the area if
+     * its minimum x lies between the left edge of the area minus the width of the widest object and the right edge,
+     * so only that range of the index is scanned.
+     *
+     * @param area the area in model space.
+     * @return a stream of UTF-8 encoded rows in the format "type,description", starting with a header row.
+     * @throws IOException if the query fails.
+     */
+    public ObjectReader objectReader(Rectangle2D area) throws IOException {
+        try {
+            if (maxObjectWidth == null) maxObjectWidth = queryMaxObjectWidth(connection);
+            return new ObjectReader("SELECT type, description FROM " + tableName + AREA_CONDITION,
+                    getAreaParameters(area, maxObjectWidth));
+        } catch (SQLException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    private void tableChanged() {
+        // The largest object width has to be queried again, also by the sources opened with objectSource()
+        maxObjectWidth = null;
+        tableChanges.incrementAndGet();
+        for (Runnable listener : changeListeners) listener.run();
+    }
+
+    private double queryMaxObjectWidth(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT MAX(max_x - min_x) FROM " + tableName)) {
+            return resultSet.next() ? resultSet.getDouble(1) : 0;
+        }
+    }
+
+    private static double[] getAreaParameters(Rectangle2D area, double maxObjectWidth) {
+        return new double[]{area.getMinX() - maxObjectWidth, area.getMaxX(), area.getMaxY(), area.getMinX(), area.getMinY()};
+    }
+    /**
+     * Opens a source of the objects in the database table for a `DatabaseLayer`, which queries the objects inside the
+     * tiles around its viewport with the same bounding-box query as `objectReader(Rectangle2D)`.
+     * The source has its own pooled connection to the current database, so it can be queried from the loader thread
+     * of the layer while this manager imports or exports on the event dispatch thread. Like `objectReader`, it queries
+     * the largest object width again once the table has been changed through this manager, and it notifies its change
+     * listener of every such change, e.g. by `synchronize` or an `ObjectWriter`.
+     *
+     * @return the source, to be closed once it is not used anymore.
+     * @throws IOException if no database has been connected.
+     */
+    public ObjectSource objectSource() throws IOException {
+        if (pool == null) throw new IOException("No database has been connected");
+        return new AreaSource(pool.newPool(1, IDLE_TIMEOUT_MILLIS));
+    }
+
+    private class AreaSource implements ObjectSource {
+        private final ConnectionPool areaPool;
+        private final String url = connectionUrl;// Database of the source, the manager may connect to others later
+        private double maxObjectWidth;
+        private int queriedChanges = -1;// Value of tableChanges when maxObjectWidth was queried
+        private Runnable changeListener;// Registered with the manager, notified of the changes of this database only
+
+        AreaSource(ConnectionPool areaPool) {
+            this.areaPool = areaPool;
+        }
+
+        @Override
+        public void setChangeListener(Runnable listener) {
+            changeListeners.remove(changeListener);
+            changeListener = listener == null ? null : () -> {
+                if (url.equals(connectionUrl)) listener.run();
+            };
+            if (changeListener != null) changeListeners.add(changeListener);
+        }
+
+        @Override
+        public void readObjects(Rectangle2D area, int maxObjects, ObjectConsumer consumer) throws IOException {
+            try {
+                Connection areaConnection = areaPool.borrow();
+                try {
+                    // Queried again after the table has been changed through the manager, e.g. by synchronize
+                    int changes = tableChanges.get();
+                    if (queriedChanges != changes) {
+                        maxObjectWidth = queryMaxObjectWidth(areaConnection);
+                        queriedChanges = changes;
+                    }
+                    try (PreparedStatement statement = areaConnection.prepareStatement(
+                            "SELECT id, type, description FROM " + tableName + AREA_CONDITION)) {
+                        double[] parameters = getAreaParameters(area, maxObjectWidth);
+                        for (int i = 0; i < parameters.length; i++) statement.setDouble(i + 1, parameters[i]);
+                        statement.setMaxRows(maxObjects);
+                        statement.setFetchSize(FETCH_SIZE);
+                        try (ResultSet resultSet = statement.executeQuery()) {
+                            while (resultSet.next()) {
+                                consumer.accept(resultSet.getLong(1), resultSet.getString(2), resultSet.getString(3));
+                            }
+                        }
+                    }
+                } finally {
+                    areaPool.release(areaConnection);
+                }
+            } catch (SQLException e) {
+                throw new IOException(e.getMessage(), e);
+            }
+        }
+
+        @Override
+        public void close() {
+            setChangeListener(null);
+            areaPool.close();
+        }
+    }
+    /**
+     * The `ObjectReader` class streams the rows of the database table as CSV text.
+     * <p>
+     * MySQL Connector/J reads a whole result into memory unless the fetch size is `Integer.MIN_VALUE`, which makes it
+     * stream the rows one by one; other drivers are asked for {@value #FETCH_SIZE} rows at a time instead. Every row
+     * is encoded only when the previous one has been read. The ids of the rows may be collected by type while the
+     * rows are streamed, for `importObjects`.
+     */
+    public class ObjectReader extends InputStream {
+        private final PreparedStatement statement;
+        private final ResultSet resultSet;
+        private byte[] row = "Type,Description\n".getBytes(StandardCharsets.UTF_8);// Bytes of the current row
+        private int position = 0;// Index of the next byte of the current row
+        private boolean endOfTable = false;
+        private final Map<String, LongStream.Builder> rowIds;// Ids of the rows with values by type, null if not collected
+        private long maxRowId = 0;// Largest id of all rows read, if the ids are collected
+
+        private ObjectReader(String query, double... parameters) throws SQLException {
+            this(null, query, parameters);
+        }
+
+        private ObjectReader(Map<String, LongStream.Builder> rowIds, String query, double... parameters) throws SQLException {
+            this.rowIds = rowIds;
+            statement = connection.prepareStatement(query, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            try {
+                for (int i = 0; i < parameters.length; i++) statement.setDouble(i + 1, parameters[i]);
+                boolean mysql = "MySQL".equalsIgnoreCase(connection.getMetaData().getDatabaseProductName());
+                statement.setFetchSize(mysql ? Integer.MIN_VALUE : FETCH_SIZE);
+                resultSet = statement.executeQuery();
+            } catch (SQLException e) {
+                statement.close();
+                throw e;
+            }
+        }
+
+        private boolean nextRow() throws IOException {
+            if (endOfTable) return false;
+            try {
+                if (!resultSet.next()) {
+                    endOfTable = true;
+                    return false;
+                }
+                String type = resultSet.getString(1);
+                String description = resultSet.getString(2);
+                // Rows without values are skipped by the CSV parser, so they have no shape to take their id
+                if (rowIds != null) {
+                    long id = resultSet.getLong(3);
+                    maxRowId = Math.max(maxRowId, id);
+                    if (hasValues(description)) rowIds.computeIfAbsent(type, key -> LongStream.builder()).add(id);
+                }
+                row = (type + "," + description + "\n").getBytes(StandardCharsets.UTF_8);
+                position = 0;
+                return true;
+            } catch (SQLException e) {
+                throw new IOException(e.getMessage(), e);
+            }
+        }
+
+        private static boolean hasValues(String description) {
+            for (int i = 0; i < description.length(); i++) {
+                char c = description.charAt(i);
+                if (c != ' ' && c != '\t' && c != '(' && c != ')') return true;
+            }
+            return false;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (position == row.length && !nextRow()) return -1;
+            return row[position++] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            if (length == 0) return 0;
+            int read = 0;
+            while (read < length) {
+                if (position == row.length && !nextRow()) break;
+                int count = Math.min(length - read, row.length - position);
+                System.arraycopy(row, position, bytes, offset + read, count);
+                position += count;
+                read += count;
+            }
+            return read == 0 ? -1 : read;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                resultSet.close();
+                statement.close();
+            } catch (SQLException e) {
+                throw new IOException(e.getMessage(), e);
+            }
+        }
     }
     /**
      * Clears all data from the database table.
@@ -144,6 +840,8 @@ public class DatabaseManager {
         String clearTableSQL = "DELETE FROM " + tableName;
         try {
             connection.createStatement().executeUpdate(clearTableSQL);
+            tableChanged();
+            syncedUrl = null;
         } catch (SQLException e) {
             JOptionPane.showMessageDialog(null, e.getMessage());
         }
@@ -165,6 +863,6 @@ public class DatabaseManager {
      */
 
     private String getDBurl(String dbName) {
-        return "jdbc:mysql://localhost:3306/" + dbName + "?useSSL=false&allowPublicKeyRetrieval=true";
+        return "jdbc:mysql://localhost:3306/" + dbName + CONNECTION_OPTIONS;
     }
 }
\ No newline at end of file
@@ -0,0 +1,161 @@
+package hska.javapractice.de;
+
+import projectComponents.ArcManager;
+import projectComponents.CSVImporter;
+import projectComponents.CSVShapeReader;
+import projectComponents.CircleManager;
+import projectComponents.EllipseManager;
+import projectComponents.LevelOfDetail;
+import projectComponents.LineManager;
+import projectComponents.PointManager;
+import projectComponents.PolygonManager;
+import projectComponents.RectangleManager;
+import projectComponents.ShapeManager;
+import projectComponents.SquareManager;
+import projectComponents.TriangleManager;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.geom.Ellipse2D;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+/**
+ * The `CSVImportBenchmark` class measures the throughput of the CSV import with the `CSVShapeReader`.
+ * <p>
+ * A CSV file with {@value #ROWS} rows of all shape types is generated in the format written by the managers. It is
+ * first tokenized into managers that discard the shapes, which measures the reader alone after a warm-up run; the
+ * benchmark passes if at least {@value #TARGET_ROWS_PER_SECOND} rows are tokenized per second. The same is measured
+ * for the `CSVImporter`, which parses chunks of the file in parallel. Then the file is imported into fresh managers,
+ * which includes storing and indexing every shape. The benchmark is executed through
+ * the `main` method and provides console output for each step.
+ */
+public class CSVImportBenchmark {
+    private static final int ROWS = 2_000_000;
+    private static final int TARGET_ROWS_PER_SECOND = 2_000_000;// Tokenizing target, without storing the shapes
+    /**
+     * The entry point for the benchmark.
+     *
+     * @param args the number of rows to generate, {@value #ROWS} if not given.
+     * @throws Exception if the CSV file cannot be written or read.
+     */
+    public static void main(String[] args) throws Exception {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : ROWS;
+        File csvFile = File.createTempFile("shapes", ".csv");
+        csvFile.deleteOnExit();
+        System.out.println("Generating " + rows + " rows in " + csvFile + "...");
+        generate(csvFile, rows);
+        System.out.printf("Generated %.1f MB%n", csvFile.length() / 1e6);
+
+        // Tokenizing only: the first run warms up the JIT
+        importRows(csvFile, createDiscardingShapeManagers());
+        long start = System.nanoTime();
+        long tokenizedRows = importRows(csvFile, createDiscardingShapeManagers());
+        double rowsPerSecond = tokenizedRows / ((System.nanoTime() - start) / 1e9);
+        System.out.printf("Tokenized %d rows: %.0f rows/s%n", tokenizedRows, rowsPerSecond);
+
+        if (tokenizedRows == rows && rowsPerSecond >= TARGET_ROWS_PER_SECOND) {
+            System.out.println("Step 1 Passed: the tokenizer reached the target of " + TARGET_ROWS_PER_SECOND + " rows/s.");
+        } else {
+            System.err.println("Step 1 Failed: the tokenizer missed the target of " + TARGET_ROWS_PER_SECOND + " rows/s.");
+        }
+
+        importRowsInParallel(csvFile, createDiscardingShapeManagers());
+        start = System.nanoTime();
+        long parallelRows = importRowsInParallel(csvFile, createDiscardingShapeManagers());
+        System.out.printf("Step 2: tokenized %d rows in parallel chunks on %d cores: %.0f rows/s%n", parallelRows,
+                Runtime.getRuntime().availableProcessors(), parallelRows / ((System.nanoTime() - start) / 1e9));
+
+        start = System.nanoTime();
+        long importedRows = importRows(csvFile, createShapeManagers());
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("Step 3: imported %d rows into the managers in %.2f s: %.0f rows/s%n", importedRows, seconds, importedRows / seconds);
+    }
+
+    private static long importRows(File csvFile, Map<String, ShapeManager> shapeManagers) throws IOException {
+        try (InputStream input = new FileInputStream(csvFile)) {
+            return new CSVShapeReader(input, shapeManagers).read();
+        }
+    }
+
+    private static long importRowsInParallel(File csvFile, Map<String, ShapeManager> shapeManagers) throws Exception {
+        CSVImporter importer = new CSVImporter(csvFile, shapeManagers);
+        importer.execute();
+        long rows = importer.get();
+        // The last chunks may still be queued for the EDT
+        SwingUtilities.invokeAndWait(() -> {});
+        return rows;
+    }
+
+    private static Map<String, ShapeManager> createShapeManagers() {
+        Map<String, ShapeManager> shapeManagers = new HashMap<>();
+        shapeManagers.put("Point", new PointManager());
+        shapeManagers.put("Line", new LineManager());
+        shapeManagers.put("Polygon", new PolygonManager());
+        shapeManagers.put("Circle", new CircleManager());
+        shapeManagers.put("Ellipse", new EllipseManager());
+        shapeManagers.put("Arc", new ArcManager());
+        shapeManagers.put("Square", new SquareManager());
+        shapeManagers.put("Rectangle", new RectangleManager());
+        shapeManagers.put("Triangle", new TriangleManager());
+        return shapeManagers;
+    }
+
+    private static Map<String, ShapeManager> createDiscardingShapeManagers() {
+        Map<String, ShapeManager> shapeManagers = new HashMap<>();
+        shapeManagers.put("Point", new PointManager() {
+            @Override
+            public void addShapes(double[] coordinates, int[] partOffsets, LevelOfDetail[] levelsOfDetail) {}
+        });
+        shapeManagers.put("Line", new LineManager() {
+            @Override
+            public void addShapes(double[] coordinates, int[] partOffsets, LevelOfDetail[] levelsOfDetail) {}
+        });
+        shapeManagers.put("Polygon", new PolygonManager() {
+            @Override
+            public void addShapes(double[] coordinates, int[] partOffsets, LevelOfDetail[] levelsOfDetail) {}
+        });
+        shapeManagers.put("Triangle", new TriangleManager() {
+            @Override
+            public void addShapes(double[] coordinates, int[] partOffsets, LevelOfDetail[] levelsOfDetail) {}
+        });
+        shapeManagers.put("Circle", new CircleManager() {
+            @Override
+            public void addShape(Ellipse2D circle) {}
+        });
+        shapeManagers.put("Rectangle", new RectangleManager() {
+            @Override
+            public void addShape(Rectangle rectangle) {}
+        });
+        return shapeManagers;
+    }
+
+    private static void generate(File csvFile, int rows) throws IOException {
+        // Mostly point-based shapes, like the imported data sets, written the way the managers export them
+        Random random = new Random(42);
+        try (Writer writer = new BufferedWriter(new FileWriter(csvFile))) {
+            writer.write("Type,Description\n");
+            for (int row = 0; row < rows; row++) {
+                int x = random.nextInt(100_000);
+                int y = random.nextInt(100_000);
+                switch (row % 10) {
+                    case 0, 1, 2 -> writer.write("Point,(" + x + " " + y + ")\n");
+                    case 3, 4 -> writer.write("Line,(" + x + " " + y + ") (" + (x + 40) + " " + (y + 25) + ")\n");
+                    case 5, 6 -> writer.write("Polygon,(" + x + " " + y + ") (" + (x + 30) + " " + y + ") (" + (x + 30) + " "
+                            + (y + 20) + ") (" + x + " " + (y + 20) + ") \n");
+                    case 7 -> writer.write("Triangle,(" + x + " " + y + ") (" + (x + 20) + " " + y + ") (" + (x + 10) + " "
+                            + (y + 15) + ") \n");
+                    case 8 -> writer.write("Rectangle," + (double) x + " " + (double) y + " 30.0 20.0 \n");
+                    default -> writer.write("Circle," + (double) x + " " + (double) y + " 12.5 \n");
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package hska.javapractice.de;
+
+import projectComponents.ArcManager;
+import projectComponents.CSVChunk;
+import projectComponents.CSVShapeReader;
+import projectComponents.CircleManager;
+import projectComponents.EllipseManager;
+import projectComponents.LineManager;
+import projectComponents.PointManager;
+import projectComponents.PolygonManager;
+import projectComponents.RectangleManager;
+import projectComponents.SceneReader;
+import projectComponents.SceneWriter;
+import projectComponents.ShapeManager;
+import projectComponents.SquareManager;
+import projectComponents.TriangleManager;
+
+import java.awt.*;
+import java.awt.geom.Arc2D;
+import java.awt.geom.Ellipse2D;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+/**
+ * The `SceneFileBenchmark` class measures saving and loading a scene with the `SceneWriter` and `SceneReader`.
+ * <p>
+ * Managers with {@value #SHAPES} shapes of all types are saved as a scene file and as a CSV file. Both files are
+ * loaded into fresh managers; the benchmark passes if the loaded scene exports exactly the same CSV rows as the
+ * original managers, and it reports the file sizes and times of both formats. The benchmark is executed through the
+ * `main` method and provides console output for each step.
+ */
+public class SceneFileBenchmark {
+    private static final int SHAPES = 1_000_000;
+    /**
+     * The entry point for the benchmark.
+     *
+     * @param args the number of shapes to generate, {@value #SHAPES} if not given.
+     * @throws IOException if a file cannot be written or read.
+     */
+    public static void main(String[] args) throws IOException {
+        int shapes = args.length > 0 ? Integer.parseInt(args[0]) : SHAPES;
+        Map<String, ShapeManager> shapeManagers = createShapeManagers();
+        generate(shapeManagers, shapes);
+        File sceneFile = File.createTempFile("shapes", ".scene");
+        File csvFile = File.createTempFile("shapes", ".csv");
+        sceneFile.deleteOnExit();
+        csvFile.deleteOnExit();
+
+        // The first round warms up the JIT
+        for (int round = 0; round < 2; round++) {
+            long start = System.nanoTime();
+            try (SceneWriter writer = new SceneWriter(sceneFile)) {
+                for (ShapeManager shapeManager : shapeManagers.values()) shapeManager.writeScene(writer);
+            }
+            double sceneSaveMillis = (System.nanoTime() - start) / 1e6;
+
+            start = System.nanoTime();
+            try (Writer writer = new BufferedWriter(new FileWriter(csvFile))) {
+                writer.write("Type,Description\n");
+                for (ShapeManager shapeManager : shapeManagers.values()) shapeManager.writeCSV(writer);
+            }
+            double csvSaveMillis = (System.nanoTime() - start) / 1e6;
+
+            start = System.nanoTime();
+            Map<String, ShapeManager> sceneManagers = createShapeManagers();
+            CSVChunk loaded;
+            try (SceneReader reader = new SceneReader(sceneFile)) {
+                loaded = reader.read();
+            }
+            double sceneDecodeMillis = (System.nanoTime() - start) / 1e6;
+            loaded.addTo(sceneManagers);
+            double sceneLoadMillis = (System.nanoTime() - start) / 1e6;
+
+            start = System.nanoTime();
+            try (InputStream input = new FileInputStream(csvFile)) {
+                new CSVShapeReader(input, createShapeManagers()).read();
+            }
+            double csvLoadMillis = (System.nanoTime() - start) / 1e6;
+
+            if (round == 0) continue;
+            System.out.printf("Scene file: %.1f MB, saved in %.0f ms, decoded in %.0f ms, loaded into the managers in %.0f ms%n",
+                    sceneFile.length() / 1e6, sceneSaveMillis, sceneDecodeMillis, sceneLoadMillis);
+            System.out.printf("CSV file:   %.1f MB, saved in %.0f ms, loaded into the managers in %.0f ms%n",
+                    csvFile.length() / 1e6, csvSaveMillis, csvLoadMillis);
+
+            boolean equal = true;
+            for (String type : shapeManagers.keySet()) {
+                equal &= shapeManagers.get(type).toCSVString().equals(sceneManagers.get(type).toCSVString());
+            }
+            if (equal) {
+                System.out.println("Step 1 Passed: the loaded scene matches the saved shapes.");
+            } else {
+                System.err.println("Step 1 Failed: the loaded scene differs from the saved shapes.");
+            }
+        }
+    }
+
+    private static Map<String, ShapeManager> createShapeManagers() {
+        Map<String, ShapeManager> shapeManagers = new LinkedHashMap<>();
+        shapeManagers.put("Point", new PointManager());
+        shapeManagers.put("Line", new LineManager());
+        shapeManagers.put("Polygon", new PolygonManager());
+        shapeManagers.put("Circle", new CircleManager());
+        shapeManagers.put("Ellipse", new EllipseManager());
+        shapeManagers.put("Arc", new ArcManager());
+        shapeManagers.put("Square", new SquareManager());
+        shapeManagers.put("Rectangle", new RectangleManager());
+        shapeManagers.put("Triangle", new TriangleManager());
+        return shapeManagers;
+    }
+
+    private static void generate(Map<String, ShapeManager> shapeManagers, int shapes) {
+        // Mostly point-based shapes close to each other, like the imported data sets, and a few with fractions
+        Random random = new Random(42);
+        for (int shape = 0; shape < shapes; shape++) {
+            int x = random.nextInt(100_000);
+            int y = random.nextInt(100_000);
+            switch (shape % 10) {
+                case 0, 1, 2 -> shapeManagers.get("Point").addShapes(new double[]{x, y}, new int[]{0});
+                case 3 -> shapeManagers.get("Line").addShapes(new double[]{x, y, x + 40, y + 25}, new int[]{0});
+                case 4, 5 -> shapeManagers.get("Polygon").addShapes(new double[]{x, y, x + 30, y, x + 30, y + 20, x, y + 20}, new int[]{0});
+                case 6 -> shapeManagers.get("Triangle").addShapes(new double[]{x, y, x + 20, y, x + 10, y + 15}, new int[]{0});
+                case 7 -> ((RectangleManager) shapeManagers.get("Rectangle")).addShape(new Rectangle(x, y, 30, 20));
+                case 8 -> ((CircleManager) shapeManagers.get("Circle")).addShape(new Ellipse2D.Double(x + 0.5, y, 12.5, 12.5));
+                default -> {
+                    ((ArcManager) shapeManagers.get("Arc")).addShape(new Arc2D.Double(x, y, 40, 20, 0, 180, Arc2D.OPEN));
+                    ((SquareManager) shapeManagers.get("Square")).addShape(new Rectangle(x, y, 15, 15));
+                    ((EllipseManager) shapeManagers.get("Ellipse")).addShape(new Ellipse2D.Double(x, y, 25, 10.25));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package hska.javapractice.de;
+
+import org.geotools.api.data.FileDataStore;
+import org.geotools.api.data.FileDataStoreFinder;
+import org.geotools.data.simple.SimpleFeatureIterator;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.LineString;
+import org.locationtech.jts.geom.MultiLineString;
+import org.locationtech.jts.geom.MultiPoint;
+import org.locationtech.jts.geom.Point;
+import projectComponents.MappedShapefileReader;
+import projectComponents.ShapeBuffer;
+
+import java.io.File;
+import java.io.IOException;
+/**
+ * The `ShapefileReaderBenchmark` class compares the time needed to load the geometry of a shapefile with GeoTools
+ * and with the `MappedShapefileReader`.
+ * <p>
+ * Both readers fill the same kind of `ShapeBuffer`s the importer hands to the shape managers, including the
+ * simplified versions of polygons and lines, so the timings cover the complete decoding of an import. Every reader
+ * is warmed up first and then timed over several runs. The benchmark is executed through the `main` method and
+ * provides console output for each reader.
+ */
+public class ShapefileReaderBenchmark {
+    private static final int WARMUP_RUNS = 20;
+    private static final int TIMED_RUNS = 50;
+    /**
+     * The entry point for the benchmark.
+     *
+     * @param args the path of the shapefile, `HKA_Buildings/HsKA_Buildings.shp` if not given.
+     * @throws IOException if the shapefile cannot be read.
+     */
+    public static void main(String[] args) throws IOException {
+        File file = new File(args.length > 0 ? args[0] : "HKA_Buildings/HsKA_Buildings.shp");
+        System.out.println("Loading " + file + " " + TIMED_RUNS + " times per reader...");
+
+        double geoToolsMillis = benchmark(() -> readWithGeoTools(file));
+        System.out.printf("GeoTools:              %.3f ms per load%n", geoToolsMillis);
+        double mappedMillis = benchmark(() -> readMapped(file));
+        System.out.printf("MappedShapefileReader: %.3f ms per load%n", mappedMillis);
+        System.out.printf("Speedup: %.1fx%n", geoToolsMillis / mappedMillis);
+    }
+
+    private static double benchmark(Load load) throws IOException {
+        for (int i = 0; i < WARMUP_RUNS; i++) load.run();
+        long start = System.nanoTime();
+        for (int i = 0; i < TIMED_RUNS; i++) load.run();
+        return (System.nanoTime() - start) / 1e6 / TIMED_RUNS;
+    }
+
+    private static void readWithGeoTools(File file) throws IOException {
+        FileDataStore store = FileDataStoreFinder.getDataStore(file);
+        ShapeBuffer polygons = new ShapeBuffer(true, true);
+        ShapeBuffer lines = new ShapeBuffer(true, false);
+        ShapeBuffer points = new ShapeBuffer(false, false);
+        try (SimpleFeatureIterator features = store.getFeatureSource().getFeatures().features()) {
+            while (features.hasNext()) {
+                Geometry geometry = (Geometry) features.next().getDefaultGeometryProperty().getValue();
+                if (geometry instanceof Point || geometry instanceof MultiPoint) {
+                    points.addPart(geometry.getCoordinates());
+                    continue;
+                }
+                ShapeBuffer target = geometry instanceof LineString || geometry instanceof MultiLineString ? lines : polygons;
+                for (int i = 0; i < geometry.getNumGeometries(); i++) {
+                    target.addPart(geometry.getGeometryN(i).getCoordinates());
+                }
+            }
+        } finally {
+            store.dispose();
+        }
+    }
+
+    private static void readMapped(File file) throws IOException {
+        try (MappedShapefileReader reader = new MappedShapefileReader(file)) {
+            reader.read(0, reader.getRecordCount(), new ShapeBuffer(true, true), new ShapeBuffer(true, false),
+                    new ShapeBuffer(false, false));
+        }
+    }
+
+    @FunctionalInterface
+    private interface Load {
+        void run() throws IOException;
+    }
+}
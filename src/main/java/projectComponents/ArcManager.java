@@ -6,7 +6,10 @@ import org.locationtech.jts.geom.LineString;
 
 import java.awt.*;
 import java.awt.event.MouseEvent;
+import java.awt.geom.Rectangle2D;
 import java.awt.geom.Arc2D;
+import java.awt.geom.Path2D;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 /**
@@ -17,7 +20,19 @@ import java.util.List;
  */
 public class ArcManager extends ShapeManager {
     private final List<Arc2D> arcs = new ArrayList<>();
-    private List<Arc2D> selectedArcs = new ArrayList<>();
+    private final ShapeIndex<Arc2D> arcIndex = new ShapeIndex<>(Arc2D::getBounds2D, this::fireShapesChanged, true);// Spatial index of all arcs, tracking their changes
+    private final ShapeSelection<Arc2D> selectedArcs = new ShapeSelection<>(arc -> fireShapesChanged(arcIndex.getBounds(arc)));
+    private final PathBatchCache<Arc2D> arcBatches = new PathBatchCache<>(arcIndex, (batch, arcs, scale) -> {
+        for (Arc2D arc : arcs) {
+            if (!selectedArcs.contains(arc)) batch.append(arc, false);
+        }
+    });// Unselected arcs merged for painting
+    /**
+     * Constructs an empty arc manager.
+     */
+    public ArcManager() {
+        addShapeChangeListener(arcBatches::invalidate);
+    }
     /**
      * Adds a new arc to the manager.
      *
@@ -25,11 +40,12 @@ public class ArcManager extends ShapeManager {
      */
     public void addShape(Arc2D arc2d) {
         this.arcs.add(arc2d);
+        this.arcIndex.insert(arc2d);
     }
 
     @Override
     public void resetSelection() {
-        selectedArcs = new ArrayList<>();
+        selectedArcs.clear();
         startPoint = null;
     }
 
@@ -38,6 +54,7 @@ public class ArcManager extends ShapeManager {
         super.newFrame();
         this.selectedArcs.clear();
         this.arcs.clear();
+        this.arcIndex.clear();
     }
 
     @Override
@@ -48,7 +65,7 @@ public class ArcManager extends ShapeManager {
             } else {
                 int width = Math.abs(startPoint.x - e.getPoint().x);
                 int height = Math.abs(startPoint.y - e.getPoint().y);
-                arcs.add(new Arc2D.Double(
+                addShape(new Arc2D.Double(
                     Math.min(startPoint.x, e.getPoint().x),
                     Math.min(startPoint.y, e.getPoint().y),
                     width, height, 0, 180, 0
@@ -56,22 +73,16 @@ public class ArcManager extends ShapeManager {
                 startPoint = null;
             }
         } else if (currentMode == ActionMode.DELETE) {
-            Arc2D selectedArc = arcs.stream()
-                    .filter(arc -> arc.contains(e.getPoint()))
-                    .findFirst()
-                    .orElse(null);
+            Arc2D selectedArc = findArcAt(e.getPoint());
             if (selectedArc != null) {
-                arcs.remove(selectedArc);
+                // Arc2D compares by value, so remove this exact instance
+                arcs.removeIf(arc -> arc == selectedArc);
                 selectedArcs.remove(selectedArc);
+                arcIndex.remove(selectedArc);
             }
         } else if (currentMode == ActionMode.SELECT) {
-            Arc2D selectedArc = arcs.stream()
-                .filter(arc -> arc.contains(e.getPoint()))
-                .findFirst()
-                .orElse(null);
-            if (selectedArc != null && selectedArcs.contains(selectedArc))
-                selectedArcs.remove(selectedArc);
-            else if (selectedArc != null) selectedArcs.add(selectedArc);
+            Arc2D selectedArc = findArcAt(e.getPoint());
+            if (selectedArc != null) selectedArcs.toggle(selectedArc);
         }
     }
 
@@ -88,20 +99,32 @@ public class ArcManager extends ShapeManager {
                         selectedArc.getWidth(),
                         selectedArc.getHeight()
                 );
+                arcIndex.update(selectedArc);
 
             }
             selectedPoint = e.getPoint();
         }
     }
 
+    private Arc2D findArcAt(Point point) {
+        return arcIndex.findFirst(point.x, point.y, 0, arc -> arc.contains(point));
+    }
+
     @Override
-    public void paint(Graphics2D g2d) {
-        for (Arc2D arc : arcs) {
-            g2d.setColor(Color.BLACK);
-            if (selectedArcs.contains(arc)) g2d.setColor(Color.BLUE);
-            g2d.draw(arc);
+    public void paint(Graphics2D g2d, Rectangle2D viewport) {
+        // Unselected arcs are drawn in a few batches, only the selected ones are drawn one by one
+        g2d.setColor(Color.BLACK);
+        for (Path2D batch : arcBatches.query(viewport, LevelOfDetail.getScale(g2d))) {
+            g2d.draw(batch);
         }
+        g2d.setColor(Color.BLUE);
+        for (Arc2D arc : selectedArcs) {
+            if (arc.getBounds2D().intersects(viewport)) g2d.draw(arc);
+        }
+    }
 
+    @Override
+    public void paintPreview(Graphics2D g2d) {
         if (startPoint != null && currentMousePosition != null) {
             g2d.setColor(Color.RED);
             int width = Math.abs(startPoint.x - currentMousePosition.x);
@@ -155,19 +178,61 @@ public class ArcManager extends ShapeManager {
     }
 
     @Override
-    public String toCSVString() {
-        StringBuilder stringBuilder = new StringBuilder();
+    public void writeScene(SceneWriter scene) throws IOException {
+        scene.startSection("Arc", 7);
+        for (Arc2D arc2d : this.arcs) {
+            scene.addValue(arc2d.getX());
+            scene.addValue(arc2d.getY());
+            scene.addValue(arc2d.getWidth());
+            scene.addValue(arc2d.getHeight());
+            scene.addValue(arc2d.getAngleStart());
+            scene.addValue(arc2d.getAngleExtent());
+            scene.addValue(arc2d.getArcType());
+            scene.endShape();
+        }
+    }
+
+    @Override
+    public void writeCSV(Appendable out) throws IOException {
         for (Arc2D arc2d : this.arcs) {
-            stringBuilder.append("Arc,");
-            stringBuilder.append(arc2d.getX()).append(" ");
-            stringBuilder.append(arc2d.getY()).append(" ");
-            stringBuilder.append(arc2d.getWidth()).append(" ");
-            stringBuilder.append(arc2d.getHeight()).append(" ");
-            stringBuilder.append(0 + " ");
-            stringBuilder.append(180 + " ");
-            stringBuilder.append(0);
-            stringBuilder.append("\n");
+            appendCSVRow(out, arc2d);
         }
-        return stringBuilder.toString();
+    }
+
+    @Override
+    public void writeChanges(SyncWriter out) throws IOException {
+        arcIndex.writeChanges(out, this::appendCSVRow);
+    }
+
+    @Override
+    public void markSynced() {
+        arcIndex.markSynced();
+    }
+
+    @Override
+    public void markUnsynced() {
+        arcIndex.markUnsynced();
+    }
+
+    @Override
+    public boolean adoptRowIds(long[] ids) {
+        return arcIndex.adoptIds(ids);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return arcIndex.isEmpty();
+    }
+
+    private void appendCSVRow(Appendable out, Arc2D arc2d) throws IOException {
+        out.append("Arc,");
+        appendNumber(out, arc2d.getX());
+        out.append(' ');
+        appendNumber(out, arc2d.getY());
+        out.append(' ');
+        appendNumber(out, arc2d.getWidth());
+        out.append(' ');
+        appendNumber(out, arc2d.getHeight());
+        out.append(" 0 180 0\n");
     }
 }
\ No newline at end of file
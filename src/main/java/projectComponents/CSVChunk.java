@@ -0,0 +1,51 @@
+package projectComponents;
+
+import java.awt.*;
+import java.awt.geom.Arc2D;
+import java.awt.geom.Ellipse2D;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+/**
+ * The `CSVChunk` class holds the shapes parsed from a range of rows of a CSV file, by shape type.
+ * <p>
+ * Chunks are parsed independently of each other, possibly on different threads, and added to the managers in the
+ * order of their rows, so the managers receive the shapes in file order.
+ */
+public class CSVChunk {
+    final ShapeBuffer lines = new ShapeBuffer(true, false);
+    final ShapeBuffer points = new ShapeBuffer(false, false);
+    final ShapeBuffer polygons = new ShapeBuffer(true, true);
+    final ShapeBuffer triangles = new ShapeBuffer(true, true);
+    final List<Arc2D> arcs = new ArrayList<>();
+    final List<Ellipse2D> circles = new ArrayList<>();
+    final List<Ellipse2D> ellipses = new ArrayList<>();
+    final List<Rectangle> rectangles = new ArrayList<>();
+    final List<Rectangle> squares = new ArrayList<>();
+    int rowCount = 0;// Rows parsed, including skipped ones
+    /**
+     * Retrieves the number of rows the chunk has been parsed from.
+     *
+     * @return the number of rows, including rows of unknown types.
+     */
+    public int getRowCount() {
+        return rowCount;
+    }
+    /**
+     * Adds all shapes of the chunk to the managers of their types; point-based shapes are added with one bulk call
+     * per manager.
+     *
+     * @param shapeManagers the managers the shapes are added to, by shape type.
+     */
+    public void addTo(Map<String, ShapeManager> shapeManagers) {
+        lines.addTo(shapeManagers.get("Line"));
+        points.addTo(shapeManagers.get("Point"));
+        polygons.addTo(shapeManagers.get("Polygon"));
+        triangles.addTo(shapeManagers.get("Triangle"));
+        for (Arc2D arc : arcs) ((ArcManager) shapeManagers.get("Arc")).addShape(arc);
+        for (Ellipse2D circle : circles) ((CircleManager) shapeManagers.get("Circle")).addShape(circle);
+        for (Ellipse2D ellipse : ellipses) ((EllipseManager) shapeManagers.get("Ellipse")).addShape(ellipse);
+        for (Rectangle rectangle : rectangles) ((RectangleManager) shapeManagers.get("Rectangle")).addShape(rectangle);
+        for (Rectangle square : squares) ((SquareManager) shapeManagers.get("Square")).addShape(square);
+    }
+}
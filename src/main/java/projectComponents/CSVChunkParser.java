@@ -0,0 +1,114 @@
+package projectComponents;
+
+import java.awt.*;
+import java.awt.geom.Arc2D;
+import java.awt.geom.Ellipse2D;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+/**
+ * The `CSVChunkParser` class parses the rows of a CSV file in a byte buffer into a `CSVChunk`.
+ * <p>
+ * Every row holds a shape type and its description, e.g. `Polygon,(10 20) (30 40) (50 20)` or `Circle,10.0 20.0 5.0`,
+ * as written by the `writeCSV` methods of the managers. The bytes are scanned once with absolute reads and the
+ * descriptions are parsed in place by a `DescriptionParser`, without creating a `String` per row or value, so the
+ * buffer may be a mapped region of the file shared by several parsers.
+ */
+class CSVChunkParser {
+    private final ByteBuffer bytes;// Bytes of the file, only read with absolute gets
+    private final long fileOffset;// Position of the first byte of the buffer in the file, for error messages
+    private int rowStart, rowEnd;// Bytes of the current row, without the line break
+    private final DescriptionParser description = new DescriptionParser();// Numbers of the current row
+    /**
+     * Constructs a parser for the rows in a buffer.
+     *
+     * @param bytes      the bytes of the file.
+     * @param fileOffset the position of the first byte of the buffer in the file.
+     */
+    CSVChunkParser(ByteBuffer bytes, long fileOffset) {
+        this.bytes = bytes;
+        this.fileOffset = fileOffset;
+    }
+    /**
+     * Parses complete rows; rows of unknown types and rows without values are skipped.
+     *
+     * @param from the index of the first byte of the first row.
+     * @param to   the index after the line break of the last row, or after its last byte at the end of the file.
+     * @return the shapes of the rows.
+     * @throws IOException if a row is malformed.
+     */
+    CSVChunk parse(int from, int to) throws IOException {
+        CSVChunk chunk = new CSVChunk();
+        int position = from;
+        while (position < to) {
+            int end = position;
+            while (end < to && bytes.get(end) != '\n') end++;
+            rowStart = position;
+            rowEnd = end > position && bytes.get(end - 1) == '\r' ? end - 1 : end;
+            readRow(chunk);
+            chunk.rowCount++;
+            position = end + 1;
+        }
+        return chunk;
+    }
+
+    private void readRow(CSVChunk chunk) throws IOException {
+        int comma = rowStart;
+        while (comma < rowEnd && bytes.get(comma) != ',') comma++;
+        if (comma == rowEnd) return;
+        try {
+            description.parse(bytes, comma + 1, rowEnd);
+        } catch (NumberFormatException e) {
+            throw new IOException("The row at byte " + (fileOffset + rowStart) + " has an invalid number: " + e.getMessage());
+        }
+        if (description.getValueCount() == 0) return;
+        double[] values = description.getValues();
+
+        if (typeEquals(comma, "Point")) {
+            addPoints(chunk.points);
+        } else if (typeEquals(comma, "Line")) {
+            addPoints(chunk.lines);
+        } else if (typeEquals(comma, "Polygon")) {
+            addPoints(chunk.polygons);
+        } else if (typeEquals(comma, "Triangle")) {
+            addPoints(chunk.triangles);
+        } else if (typeEquals(comma, "Arc")) {
+            requireValues(7);
+            chunk.arcs.add(new Arc2D.Double(values[0], values[1], values[2], values[3], values[4], values[5], (int) values[6]));
+        } else if (typeEquals(comma, "Circle")) {
+            requireValues(3);
+            chunk.circles.add(new Ellipse2D.Double(values[0], values[1], values[2], values[2]));
+        } else if (typeEquals(comma, "Ellipse")) {
+            requireValues(4);
+            chunk.ellipses.add(new Ellipse2D.Double(values[0], values[1], values[2], values[3]));
+        } else if (typeEquals(comma, "Rectangle")) {
+            requireValues(4);
+            chunk.rectangles.add(new Rectangle((int) values[0], (int) values[1], (int) values[2], (int) values[3]));
+        } else if (typeEquals(comma, "Square")) {
+            requireValues(3);
+            chunk.squares.add(new Rectangle((int) values[0], (int) values[1], (int) values[2], (int) values[2]));
+        }
+    }
+
+    private void addPoints(ShapeBuffer shapes) {
+        double[] values = description.getValues();
+        shapes.startPart();
+        for (int i = 0; i + 1 < description.getValueCount(); i += 2) {
+            shapes.addPoint(values[i], values[i + 1]);
+        }
+        shapes.endPart();
+    }
+
+    private boolean typeEquals(int typeEnd, String type) {
+        if (typeEnd - rowStart != type.length()) return false;
+        for (int i = 0; i < type.length(); i++) {
+            if (bytes.get(rowStart + i) != type.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    private void requireValues(int count) throws IOException {
+        if (description.getValueCount() < count) {
+            throw new IOException("The row at byte " + (fileOffset + rowStart) + " has " + description.getValueCount() + " values instead of " + count);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package projectComponents;
+
+import javax.swing.*;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+/**
+ * The `CSVImporter` class imports the shapes of a CSV file into the shape managers as a background job.
+ * <p>
+ * The file is split into chunks of about {@value #CHUNK_SIZE} bytes, each extended to the next line break so no row
+ * is cut. Every chunk is memory-mapped and parsed by a `CSVChunkParser` on the common `ForkJoinPool`, into buffers of
+ * its own, so the chunks are parsed in parallel on all cores. The parsed chunks are published to the EDT in file
+ * order, and at most two chunks per core wait for that, which bounds the memory used by large files. On the EDT every
+ * chunk is added to the managers inside a bulk update, so the shapes appear while the rest of the file is parsed. The
+ * progress is reported in percent of the bytes, and no further chunks are parsed once the job is cancelled.
+ */
+public class CSVImporter extends SwingWorker<Integer, CSVChunk> {
+    private static final long CHUNK_SIZE = 8 << 20;// Bytes parsed by one task, before extending to the next line break
+    private static final int SCAN_SIZE = 1 << 16;// Bytes read at once while looking for a line break
+
+    private final File file;
+    private final Map<String, ShapeManager> shapeManagers;// Managers the shapes are added to, by shape type
+    private final Deque<ParseTask> pendingTasks = new ArrayDeque<>();// Submitted tasks in file order
+    private int importedRows = 0;
+    /**
+     * Constructs an import job; it is started with `execute()`.
+     *
+     * @param file          the CSV file, starting with a header row.
+     * @param shapeManagers the managers the shapes are added to, by shape type.
+     */
+    public CSVImporter(File file, Map<String, ShapeManager> shapeManagers) {
+        this.file = file;
+        this.shapeManagers = shapeManagers;
+    }
+
+    @Override
+    protected Integer doInBackground() throws IOException {
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        int maxPendingTasks = 2 * pool.getParallelism();// Bounds the parsed chunks waiting for the EDT
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            long start = findRowEnd(channel, 0, size);// The header row is skipped
+            while (start < size && !isCancelled()) {
+                long end = findRowEnd(channel, Math.min(size, start + CHUNK_SIZE), size);
+                ParseTask task = new ParseTask(channel, start, end);
+                pool.execute(task);
+                pendingTasks.add(task);
+                start = end;
+
+                // Publish the parsed chunks in file order, waiting for the oldest one if too many are pending
+                while (!pendingTasks.isEmpty() && (pendingTasks.peek().isDone() || pendingTasks.size() >= maxPendingTasks)) {
+                    publishParsed(size);
+                }
+            }
+            while (!pendingTasks.isEmpty() && !isCancelled()) publishParsed(size);
+        } finally {
+            for (ParseTask task : pendingTasks) task.cancel(false);
+        }
+        return importedRows;
+    }
+
+    private void publishParsed(long size) {
+        ParseTask task = pendingTasks.poll();
+        CSVChunk chunk = task.join();
+        publish(chunk);
+        importedRows += chunk.getRowCount();
+        setProgress(size == 0 ? 100 : (int) (100 * task.end / size));
+    }
+
+    private static long findRowEnd(FileChannel channel, long position, long size) throws IOException {
+        // Position after the next line break at or after the given position, or the end of the file
+        ByteBuffer scan = ByteBuffer.allocate(SCAN_SIZE);
+        while (position < size) {
+            scan.clear();
+            int read = channel.read(scan, position);
+            if (read < 0) break;
+            for (int i = 0; i < read; i++) {
+                if (scan.get(i) == '\n') return position + i + 1;
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    @Override
+    protected void process(List<CSVChunk> chunks) {
+        // The managers are only notified once per call, so the tiles are not invalidated for every single shape
+        for (ShapeManager shapeManager : shapeManagers.values()) shapeManager.beginUpdate();
+        try {
+            for (CSVChunk chunk : chunks) chunk.addTo(shapeManagers);
+        } finally {
+            for (ShapeManager shapeManager : shapeManagers.values()) shapeManager.endUpdate();
+        }
+    }
+
+    private static class ParseTask extends RecursiveTask<CSVChunk> {
+        final FileChannel channel;
+        final long start, end;// Range of the file parsed by this task, from the start of a row to after a line break
+
+        ParseTask(FileChannel channel, long start, long end) {
+            this.channel = channel;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected CSVChunk compute() {
+            try {
+                if (end - start > Integer.MAX_VALUE) throw new IOException("The row at byte " + start + " is too long");
+                ByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+                return new CSVChunkParser(bytes, start).parse(0, (int) (end - start));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
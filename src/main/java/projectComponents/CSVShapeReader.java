@@ -0,0 +1,85 @@
+package projectComponents;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Map;
+/**
+ * The `CSVShapeReader` class imports the shapes of a CSV file written by the `writeCSV` methods of the managers
+ * from a stream.
+ * <p>
+ * The file is read in blocks of about {@value #BUFFER_SIZE} bytes into a reused buffer. The complete rows of every
+ * block are parsed in place by a `CSVChunkParser`, and the parsed shapes are handed to the managers with one bulk call
+ * per block and type; a row cut off at the end of a block is moved to the front of the buffer and completed by the
+ * next block. The whole import is a single bulk update of the managers. Large files are imported faster by the
+ * `CSVImporter`, which parses several parts of the file in parallel.
+ */
+public class CSVShapeReader {
+    private static final int BUFFER_SIZE = 1 << 20;// Initial number of bytes read at once, grown for longer rows
+
+    private final InputStream input;
+    private final Map<String, ShapeManager> shapeManagers;// Managers the shapes are added to, by shape type
+    /**
+     * Constructs a reader for a CSV file; the file is read with `read()`.
+     *
+     * @param input         the bytes of the file, read in large blocks so no buffering is needed.
+     * @param shapeManagers the managers the shapes are added to, by shape type.
+     */
+    public CSVShapeReader(InputStream input, Map<String, ShapeManager> shapeManagers) {
+        this.input = input;
+        this.shapeManagers = shapeManagers;
+    }
+    /**
+     * Reads all rows after the header row and adds their shapes to the managers; rows of unknown types are skipped.
+     *
+     * @return the number of rows read, without the header row.
+     * @throws IOException if the file cannot be read or a row is malformed.
+     */
+    public long read() throws IOException {
+        for (ShapeManager shapeManager : shapeManagers.values()) shapeManager.beginUpdate();
+        try {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int limit = 0;// End of the bytes read into the buffer
+            long bufferOffset = 0;// Position of the first byte of the buffer in the file
+            boolean headerSkipped = false;
+            boolean endOfInput = false;
+            long rows = 0;
+            while (!endOfInput) {
+                int read = input.read(buffer, limit, buffer.length - limit);
+                if (read < 0) {
+                    endOfInput = true;
+                } else {
+                    limit += read;
+                }
+
+                // Only complete rows are parsed, up to the last line break unless the file has ended
+                int complete = limit;
+                if (!endOfInput) {
+                    while (complete > 0 && buffer[complete - 1] != '\n') complete--;
+                    if (complete == 0) {
+                        if (limit == buffer.length) buffer = Arrays.copyOf(buffer, 2 * buffer.length);
+                        continue;
+                    }
+                }
+
+                int from = 0;
+                if (!headerSkipped) {
+                    while (from < complete && buffer[from] != '\n') from++;
+                    from = Math.min(from + 1, complete);
+                    headerSkipped = true;
+                }
+                CSVChunk chunk = new CSVChunkParser(ByteBuffer.wrap(buffer), bufferOffset).parse(from, complete);
+                chunk.addTo(shapeManagers);
+                rows += chunk.getRowCount();
+
+                System.arraycopy(buffer, complete, buffer, 0, limit - complete);
+                bufferOffset += complete;
+                limit -= complete;
+            }
+            return rows;
+        } finally {
+            for (ShapeManager shapeManager : shapeManagers.values()) shapeManager.endUpdate();
+        }
+    }
+}
@@ -2,7 +2,9 @@ package projectComponents;
 
 import java.awt.*;
 import java.awt.event.MouseEvent;
+import java.awt.geom.Rectangle2D;
 import java.awt.geom.Ellipse2D;
+import java.io.IOException;
 /**
  * The `CircleManager` class extends `EllipseManager` to specifically manage circles.
  * <p>
@@ -18,39 +20,22 @@ public class CircleManager extends EllipseManager {
                 startPoint = e.getPoint();
             } else {
                 int radius = (int) startPoint.distance(e.getPoint());
-                ellipses.add(new Ellipse2D.Double(
+                addShape(new Ellipse2D.Double(
                         startPoint.x - radius, startPoint.y - radius, radius * 2, radius * 2
                 ));
                 startPoint = null; // Reset the start point for the next circle
             }
         } else if (currentMode == ActionMode.DELETE) {
-            Ellipse2D selectedCircle = ellipses.stream()
-                    .filter(circle -> circle.contains(e.getPoint()))
-                    .findFirst()
-                    .orElse(null);
-            if (selectedCircle != null) {
-                ellipses.remove(selectedCircle);
-                selectedEllipses.remove(selectedCircle);
-            }
+            Ellipse2D selectedCircle = findEllipseAt(e.getPoint());
+            if (selectedCircle != null) removeEllipse(selectedCircle);
         } else if (currentMode == ActionMode.SELECT) {
-            Ellipse2D selectedCircle = ellipses.stream()
-                    .filter(circle -> circle.contains(e.getPoint()))
-                    .findFirst()
-                    .orElse(null);
-            if (selectedCircle != null && selectedEllipses.contains(selectedCircle))
-                selectedEllipses.remove(selectedCircle);
-            else if (selectedCircle != null) selectedEllipses.add(selectedCircle);
+            Ellipse2D selectedCircle = findEllipseAt(e.getPoint());
+            if (selectedCircle != null) selectedEllipses.toggle(selectedCircle);
         }
     }
 
     @Override
-    public void paint(Graphics2D g2d) {
-        for (Ellipse2D circle : ellipses) {
-            g2d.setColor(Color.BLACK);
-            if (selectedEllipses.contains(circle)) g2d.setColor(Color.BLUE);
-            g2d.draw(circle);
-        }
-
+    public void paintPreview(Graphics2D g2d) {
         if (startPoint != null && currentMousePosition != null) {
             g2d.setColor(Color.RED);
             int radius = (int) startPoint.distance(currentMousePosition);
@@ -59,15 +44,31 @@ public class CircleManager extends EllipseManager {
     }
 
     @Override
-    public String toCSVString() {
-        StringBuilder stringBuilder = new StringBuilder();
+    public Rectangle2D getPreviewBounds() {
+        if (startPoint == null || currentMousePosition == null) return null;
+        int radius = (int) startPoint.distance(currentMousePosition);
+        return new Rectangle2D.Double(startPoint.x - radius, startPoint.y - radius, radius * 2, radius * 2);
+    }
+
+    @Override
+    public void writeScene(SceneWriter scene) throws IOException {
+        scene.startSection("Circle", 3);
         for (Ellipse2D circle : this.ellipses) {
-            stringBuilder.append("Circle,");
-            stringBuilder.append(circle.getX()).append(" ");
-            stringBuilder.append(circle.getY()).append(" ");
-            stringBuilder.append(circle.getWidth()).append(" ");
-            stringBuilder.append("\n");
+            scene.addValue(circle.getX());
+            scene.addValue(circle.getY());
+            scene.addValue(circle.getWidth());
+            scene.endShape();
         }
-        return stringBuilder.toString();
+    }
+
+    @Override
+    protected void appendCSVRow(Appendable out, Ellipse2D circle) throws IOException {
+        out.append("Circle,");
+        appendNumber(out, circle.getX());
+        out.append(' ');
+        appendNumber(out, circle.getY());
+        out.append(' ');
+        appendNumber(out, circle.getWidth());
+        out.append(" \n");
     }
 }
\ No newline at end of file
@@ -0,0 +1,353 @@
+package projectComponents;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.geom.Arc2D;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Path2D;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+/**
+ * The `DatabaseLayer` class shows the objects stored in a database, loading only the tiles around the viewport.
+ * <p>
+ * The plane is divided into square tiles whose size is the power of two between once and twice the larger side of
+ * the viewport, so at most nine tiles cover the viewport and a margin of {@value #PREFETCH_MARGIN} times its size on
+ * every side. The tiles that are not cached are queried from the `ObjectSource` on a background thread, the ones
+ * closest to the center of the viewport first, and a single tile holds at most {@value #MAX_OBJECTS_PER_TILE}
+ * objects; the objects left out of a crowded tile appear in the smaller tiles fetched once the user zooms in.
+ * <p>
+ * The fetched tiles are kept in an LRU cache bounded to {@value #MAX_CACHED_ENTRIES} objects in all tiles, so panning
+ * back or zooming out again does not query the database. An object intersecting several tiles is parsed and indexed
+ * only once, identified by its id, and dropped with the last cached tile holding it. The source reports the changes of
+ * its objects, e.g. an export to the linked table, without their area, so every change drops all cached tiles and
+ * fetches the tiles around the viewport again. The layer is read-only: its objects cannot be selected or edited and
+ * are neither exported nor saved.
+ */
+public class DatabaseLayer extends ShapeLayer {
+    private static final double PREFETCH_MARGIN = 0.5;// Part of the viewport size fetched in addition on every side
+    private static final int MAX_OBJECTS_PER_TILE = 20_000;
+    private static final long MAX_CACHED_ENTRIES = 1_000_000;// Objects of all cached tiles, counted once per tile
+
+    private final Consumer<IOException> errorHandler;// Called on the EDT if a tile cannot be read
+    private final ShapeIndex<StoredObject> objectIndex = new ShapeIndex<>(object -> object.bounds, this::fireShapesChanged);// Spatial index of the cached objects
+    private final PathBatchCache<StoredObject> objectBatches = new PathBatchCache<>(objectIndex, (batch, objects, scale) -> {
+        for (StoredObject object : objects) {
+            batch.append(object.shape, false);
+        }
+    });// All cached objects merged for painting
+    private final Map<Long, StoredObject> objects = Collections.synchronizedMap(new HashMap<>());// Objects of the cached tiles by id, looked up by the loader thread
+    private final Map<TileKey, long[]> tiles = new LinkedHashMap<>(16, 0.75f, true);// Ids of the objects of the cached tiles, in LRU order
+    private long cachedEntries = 0;// Objects of all cached tiles, only changed on the EDT
+    private ObjectSource source;// Source currently linked, null if none
+    private Rectangle2D viewport;// Latest viewport, null before the first one
+    private List<TileKey> visibleTiles = List.of();// Tiles covering the latest viewport and its margin
+    private final Deque<TileKey> requestedTiles = new ArrayDeque<>();// Tiles to be fetched by the loader thread, nearest first
+    private ObjectSource requestedSource;// Source the tiles are fetched from
+    private final Set<TileKey> fetchingTiles = new HashSet<>();// Tiles taken by the loader thread but not cached yet
+    private int tileVersion = 0;// Incremented whenever all tiles are dropped, so tiles fetched before are ignored
+    /**
+     * Constructs an empty layer and starts its loader thread.
+     *
+     * @param errorHandler called on the EDT if a tile cannot be read from the linked source.
+     */
+    public DatabaseLayer(Consumer<IOException> errorHandler) {
+        this.errorHandler = errorHandler;
+        addShapeChangeListener(objectBatches::invalidate);
+        Thread loaderThread = new Thread(this::loadTiles, "database-layer-loader");
+        loaderThread.setDaemon(true);
+        loaderThread.start();
+    }
+    /**
+     * Links a source of objects to the layer, replacing the source linked before.
+     * The layer closes the source when it is unlinked.
+     *
+     * @param source the source, e.g. of the objects in a database table.
+     */
+    public void link(ObjectSource source) {
+        unlink();
+        this.source = source;
+        source.setChangeListener(() -> SwingUtilities.invokeLater(() -> {
+            if (source != this.source) return;
+            dropTiles();
+            if (viewport != null) setViewport(viewport);
+        }));
+    }
+    /**
+     * Closes the linked source and drops all cached tiles.
+     */
+    public void unlink() {
+        if (source == null) return;
+        dropTiles();
+        synchronized (this) {
+            requestedSource = null;
+        }
+        try {
+            // A query still running on the loader thread fails or is ignored
+            source.close();
+        } catch (IOException e) {
+            // The source is not used anymore
+        }
+        source = null;
+    }
+
+    private void dropTiles() {
+        synchronized (this) {
+            requestedTiles.clear();
+            fetchingTiles.clear();
+            tileVersion++;
+        }
+        visibleTiles = List.of();
+        tiles.clear();
+        cachedEntries = 0;
+        objects.clear();
+        objectIndex.clear();
+    }
+    /**
+     * Returns the number of cached objects, counting an object intersecting several cached tiles once.
+     *
+     * @return the number of objects of all cached tiles.
+     */
+    public int getObjectCount() {
+        return objects.size();
+    }
+    /**
+     * Loads the tiles around the given viewport in the background, unless they are cached already.
+     *
+     * @param viewport the area shown by the panel, in model space.
+     */
+    public void setViewport(Rectangle2D viewport) {
+        if (source == null || viewport.isEmpty()) return;
+        this.viewport = viewport;
+        int level = Math.getExponent(Math.max(viewport.getWidth(), viewport.getHeight())) + 1;
+        double tileSize = Math.scalb(1.0, level);
+        double marginX = PREFETCH_MARGIN * viewport.getWidth();
+        double marginY = PREFETCH_MARGIN * viewport.getHeight();
+        long minX = (long) Math.floor((viewport.getMinX() - marginX) / tileSize);
+        long minY = (long) Math.floor((viewport.getMinY() - marginY) / tileSize);
+        long maxX = (long) Math.floor((viewport.getMaxX() + marginX) / tileSize);
+        long maxY = (long) Math.floor((viewport.getMaxY() + marginY) / tileSize);
+        List<TileKey> keys = new ArrayList<>();
+        for (long y = minY; y <= maxY; y++) {
+            for (long x = minX; x <= maxX; x++) {
+                keys.add(new TileKey(level, x, y));
+            }
+        }
+        // Painting without panning or zooming neither requests tiles again nor retries a failed one
+        if (keys.equals(visibleTiles)) return;
+        visibleTiles = keys;
+
+        List<TileKey> missingTiles = new ArrayList<>();
+        for (TileKey key : keys) {
+            // Also marks a cached tile as recently used
+            if (tiles.get(key) == null) missingTiles.add(key);
+        }
+        missingTiles.sort(Comparator.comparingDouble(key -> Point2D.distance(viewport.getCenterX(), viewport.getCenterY(),
+                key.getBounds().getCenterX(), key.getBounds().getCenterY())));
+        synchronized (this) {
+            // Replaces the tiles not fetched yet, so only the latest viewport is loaded while the user keeps panning
+            requestedTiles.clear();
+            for (TileKey key : missingTiles) {
+                if (!fetchingTiles.contains(key)) requestedTiles.add(key);
+            }
+            requestedSource = source;
+            notifyAll();
+        }
+    }
+
+    private void loadTiles() {
+        while (true) {
+            TileKey key;
+            ObjectSource tileSource;
+            int version;
+            synchronized (this) {
+                while (requestedTiles.isEmpty()) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                key = requestedTiles.poll();
+                tileSource = requestedSource;
+                version = tileVersion;
+                if (tileSource == null) continue;// Unlinked meanwhile
+                fetchingTiles.add(key);
+            }
+
+            try {
+                List<StoredObject> tileObjects = fetch(tileSource, key);
+                SwingUtilities.invokeLater(() -> addTile(tileSource, version, key, tileObjects));
+            } catch (IOException e) {
+                SwingUtilities.invokeLater(() -> {
+                    synchronized (this) {
+                        fetchingTiles.remove(key);
+                    }
+                    if (tileSource == source) errorHandler.accept(e);
+                });
+            }
+        }
+    }
+
+    private List<StoredObject> fetch(ObjectSource tileSource, TileKey key) throws IOException {
+        List<StoredObject> tileObjects = new ArrayList<>();
+        DescriptionParser parser = new DescriptionParser();
+        tileSource.readObjects(key.getBounds(), MAX_OBJECTS_PER_TILE, (id, type, description) -> {
+            // An object cached for another tile is not parsed again
+            StoredObject object = objects.get(id);
+            if (object == null) object = StoredObject.parse(id, type, description, parser);
+            if (object != null) tileObjects.add(object);
+        });
+        return tileObjects;
+    }
+
+    private void addTile(ObjectSource tileSource, int version, TileKey key, List<StoredObject> tileObjects) {
+        synchronized (this) {
+            // A tile fetched before all tiles were dropped is fetched again for the current version
+            if (version != tileVersion) return;
+            fetchingTiles.remove(key);
+        }
+        if (tileSource != source || tiles.containsKey(key)) return;
+        // The tiles of the batch cache are only invalidated once for all fetched objects
+        beginUpdate();
+        try {
+            long[] ids = new long[tileObjects.size()];
+            for (int i = 0; i < ids.length; i++) {
+                StoredObject object = tileObjects.get(i);
+                StoredObject cached = objects.putIfAbsent(object.id, object);
+                if (cached == null) {
+                    objectIndex.insert(object);
+                    cached = object;
+                }
+                cached.tileCount++;
+                ids[i] = object.id;
+            }
+            tiles.put(key, ids);
+            cachedEntries += ids.length;
+            evictTiles();
+        } finally {
+            endUpdate();
+        }
+    }
+
+    private void evictTiles() {
+        Iterator<Map.Entry<TileKey, long[]>> iterator = tiles.entrySet().iterator();
+        while (cachedEntries > MAX_CACHED_ENTRIES && iterator.hasNext()) {
+            Map.Entry<TileKey, long[]> tile = iterator.next();
+            if (visibleTiles.contains(tile.getKey())) continue;// Dropping it would only fetch it again
+            iterator.remove();
+            cachedEntries -= tile.getValue().length;
+            for (long id : tile.getValue()) {
+                StoredObject object = objects.get(id);
+                if (--object.tileCount > 0) continue;
+                objects.remove(id);
+                objectIndex.remove(object);
+            }
+        }
+    }
+
+    @Override
+    public void paint(Graphics2D g2d, Rectangle2D viewport) {
+        g2d.setColor(Color.DARK_GRAY);
+        for (Path2D batch : objectBatches.query(viewport, LevelOfDetail.getScale(g2d))) {
+            g2d.draw(batch);
+        }
+    }
+
+    private static class TileKey {
+        final int level;// The tile size is 2 to the power of the level
+        final long x;
+        final long y;
+
+        TileKey(int level, long x, long y) {
+            this.level = level;
+            this.x = x;
+            this.y = y;
+        }
+
+        Rectangle2D getBounds() {
+            double size = Math.scalb(1.0, level);
+            return new Rectangle2D.Double(x * size, y * size, size, size);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof TileKey key && level == key.level && x == key.x && y == key.y;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(level, x, y);
+        }
+    }
+
+    private static class StoredObject {
+        final long id;
+        final Shape shape;// Outline of the object, in model space
+        final Rectangle2D bounds;
+        int tileCount = 0;// Cached tiles holding the object, only changed on the EDT
+
+        StoredObject(long id, Shape shape) {
+            this.id = id;
+            this.shape = shape;
+            this.bounds = shape.getBounds2D();
+        }
+        /**
+         * Converts an object from its CSV description, e.g. `(10 20) (30 40)` for a line or `10.0 20.0 5.0` for a circle.
+         *
+         * @return the object, or null for unknown types and invalid descriptions.
+         */
+        static StoredObject parse(long id, String type, String description, DescriptionParser parser) {
+            try {
+                parser.parse(description);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+            double[] values = parser.getValues();
+            int valueCount = parser.getValueCount();
+            if (valueCount == 0) return null;
+
+            Shape shape = switch (type) {
+                case "Point" -> {
+                    Path2D path = new Path2D.Float();
+                    for (int i = 0; i + 1 < valueCount; i += 2) {
+                        path.append(new Ellipse2D.Double(values[i] - 3, values[i + 1] - 3, 6, 6), false);
+                    }
+                    yield path;
+                }
+                case "Line", "Polygon", "Triangle" -> {
+                    if (valueCount < 2) yield null;
+                    Path2D path = new Path2D.Float();
+                    path.moveTo(values[0], values[1]);
+                    for (int i = 2; i + 1 < valueCount; i += 2) {
+                        path.lineTo(values[i], values[i + 1]);
+                    }
+                    if (!type.equals("Line")) path.closePath();
+                    yield path;
+                }
+                case "Circle" -> valueCount < 3 ? null : new Ellipse2D.Double(values[0], values[1], values[2], values[2]);
+                case "Ellipse" -> valueCount < 4 ? null : new Ellipse2D.Double(values[0], values[1], values[2], values[3]);
+                case "Square" -> valueCount < 3 ? null : new Rectangle2D.Double(values[0], values[1], values[2], values[2]);
+                case "Rectangle" -> valueCount < 4 ? null : new Rectangle2D.Double(values[0], values[1], values[2], values[3]);
+                case "Arc" -> valueCount < 7 ? null
+                        : new Arc2D.Double(values[0], values[1], values[2], values[3], values[4], values[5], (int) values[6]);
+                default -> null;
+            };
+            return shape == null ? null : new StoredObject(id, shape);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package projectComponents;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+/**
+ * The `DescriptionParser` class parses the description of a shape, e.g. `(10 20) (30 40) (50 20)` for a polygon or
+ * `10.0 20.0 5.0` for a circle, as written by the `writeCSV` methods of the managers and stored in the database table.
+ * <p>
+ * The numbers are separated by blanks and wrapped in parentheses as points. They are parsed in place with absolute
+ * reads, without creating a `String` per value, so the bytes may be a mapped region of a file. The `CSVChunkParser`,
+ * the `DatabaseLayer` and the `DatabaseManager` all read descriptions with this class. A parser keeps the values of
+ * the description parsed last and is not thread-safe.
+ */
+public class DescriptionParser {
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };// Exactly representable powers of ten for the fast number path
+
+    private double[] values = new double[64];// Numbers of the description parsed last
+    private int valueCount = 0;
+    /**
+     * Parses a description given as text.
+     *
+     * @param description the description.
+     * @throws NumberFormatException if the description holds an invalid number.
+     */
+    public void parse(String description) {
+        byte[] bytes = description.getBytes(StandardCharsets.US_ASCII);
+        parse(ByteBuffer.wrap(bytes), 0, bytes.length);
+    }
+    /**
+     * Parses a description in a range of bytes.
+     *
+     * @param bytes the bytes, only read with absolute gets.
+     * @param from  the index of the first byte of the description.
+     * @param to    the index after the last byte of the description.
+     * @throws NumberFormatException if the description holds an invalid number; its message is the number.
+     */
+    public void parse(ByteBuffer bytes, int from, int to) {
+        valueCount = 0;
+        int i = from;
+        while (i < to) {
+            // Numbers are separated by blanks and wrapped in parentheses as points
+            if (isSeparator(bytes.get(i))) {
+                i++;
+                continue;
+            }
+            int end = i;
+            while (end < to && !isSeparator(bytes.get(end))) end++;
+            if (valueCount == values.length) values = Arrays.copyOf(values, 2 * valueCount);
+            values[valueCount++] = parseNumber(bytes, i, end);
+            i = end;
+        }
+    }
+    /**
+     * Returns the number of values of the description parsed last.
+     *
+     * @return the number of values, e.g. twice the number of points of a polygon.
+     */
+    public int getValueCount() {
+        return valueCount;
+    }
+    /**
+     * Returns the values of the description parsed last. The array is reused by the next `parse` call.
+     *
+     * @return the values, of which the first `getValueCount()` are valid.
+     */
+    public double[] getValues() {
+        return values;
+    }
+    /**
+     * Computes the bounding box of a shape of the given type from the description parsed last.
+     *
+     * @param type the type of the shape, e.g. `Polygon`.
+     * @return the minimum x, minimum y, maximum x and maximum y, or null for unknown types and missing values.
+     */
+    public double[] getBounds(String type) {
+        switch (type) {
+            case "Point", "Line", "Polygon", "Triangle" -> {
+                if (valueCount < 2) return null;
+                double[] bounds = {values[0], values[1], values[0], values[1]};
+                for (int i = 2; i + 1 < valueCount; i += 2) {
+                    bounds[0] = Math.min(bounds[0], values[i]);
+                    bounds[1] = Math.min(bounds[1], values[i + 1]);
+                    bounds[2] = Math.max(bounds[2], values[i]);
+                    bounds[3] = Math.max(bounds[3], values[i + 1]);
+                }
+                return bounds;
+            }
+            case "Circle", "Square" -> {
+                return valueCount < 3 ? null : new double[]{values[0], values[1], values[0] + values[2], values[1] + values[2]};
+            }
+            case "Ellipse", "Rectangle", "Arc" -> {
+                // The frame of an arc contains it
+                return valueCount < 4 ? null : new double[]{values[0], values[1], values[0] + values[2], values[1] + values[3]};
+            }
+            default -> {
+                return null;
+            }
+        }
+    }
+
+    private static boolean isSeparator(byte b) {
+        return b == ' ' || b == '\t' || b == '(' || b == ')';
+    }
+
+    private static double parseNumber(ByteBuffer bytes, int from, int to) {
+        int i = from;
+        boolean negative = bytes.get(i) == '-';
+        if (negative || bytes.get(i) == '+') i++;
+
+        // Up to 18 significant digits fit into a long without overflow
+        long mantissa = 0;
+        int digits = 0;
+        int exponent = 0;
+        while (i < to && isDigit(bytes.get(i))) {
+            mantissa = 10 * mantissa + (bytes.get(i++) - '0');
+            digits++;
+        }
+        if (i < to && bytes.get(i) == '.') {
+            i++;
+            while (i < to && isDigit(bytes.get(i))) {
+                mantissa = 10 * mantissa + (bytes.get(i++) - '0');
+                digits++;
+                exponent--;
+            }
+        }
+        if (i + 1 < to && (bytes.get(i) == 'e' || bytes.get(i) == 'E')) {
+            i++;
+            boolean negativeExponent = bytes.get(i) == '-';
+            if (negativeExponent || bytes.get(i) == '+') i++;
+            int explicitExponent = 0;
+            while (i < to && isDigit(bytes.get(i)) && explicitExponent < 10_000) {
+                explicitExponent = 10 * explicitExponent + (bytes.get(i++) - '0');
+            }
+            exponent += negativeExponent ? -explicitExponent : explicitExponent;
+        }
+
+        // Exact as long as both the mantissa and the power of ten are exact doubles, the rest is left to the JDK
+        if (i == to && digits > 0 && digits <= 18 && mantissa < 1L << 53 && Math.abs(exponent) < POWERS_OF_TEN.length) {
+            double value = exponent < 0 ? mantissa / POWERS_OF_TEN[-exponent] : mantissa * POWERS_OF_TEN[exponent];
+            return negative ? -value : value;
+        }
+        byte[] text = new byte[to - from];
+        bytes.get(from, text);
+        try {
+            return Double.parseDouble(new String(text, StandardCharsets.US_ASCII));
+        } catch (NumberFormatException e) {
+            throw new NumberFormatException(new String(text, StandardCharsets.UTF_8));
+        }
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+}
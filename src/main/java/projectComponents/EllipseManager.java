@@ -7,6 +7,9 @@ import org.locationtech.jts.geom.LinearRing;
 import java.awt.*;
 import java.awt.event.MouseEvent;
 import java.awt.geom.Ellipse2D;
+import java.awt.geom.Path2D;
+import java.awt.geom.Rectangle2D;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 /**
@@ -17,7 +20,19 @@ import java.util.List;
 
 public class EllipseManager extends ShapeManager {
     protected final List<Ellipse2D> ellipses = new ArrayList<>();
-    protected List<Ellipse2D> selectedEllipses = new ArrayList<>();
+    protected final ShapeIndex<Ellipse2D> ellipseIndex = new ShapeIndex<>(Ellipse2D::getBounds2D, this::fireShapesChanged, true);// Spatial index of all ellipses, tracking their changes
+    protected final ShapeSelection<Ellipse2D> selectedEllipses = new ShapeSelection<>(ellipse -> fireShapesChanged(ellipseIndex.getBounds(ellipse)));
+    protected final PathBatchCache<Ellipse2D> ellipseBatches = new PathBatchCache<>(ellipseIndex, (batch, ellipses, scale) -> {
+        for (Ellipse2D ellipse : ellipses) {
+            if (!selectedEllipses.contains(ellipse)) batch.append(ellipse, false);
+        }
+    });// Unselected ellipses merged for painting
+    /**
+     * Constructs an empty ellipse manager.
+     */
+    public EllipseManager() {
+        addShapeChangeListener(ellipseBatches::invalidate);
+    }
     /**
      * Adds a new ellipse to the manager.
      *
@@ -25,11 +40,33 @@ public class EllipseManager extends ShapeManager {
      */
     public void addShape(Ellipse2D ellipse2d) {
         this.ellipses.add(ellipse2d);
+        this.ellipseIndex.insert(ellipse2d);
+    }
+    /**
+     * Removes an ellipse from the manager, its selection and its spatial index.
+     * <p>
+     * Ellipses are compared by identity, since `Ellipse2D` considers two ellipses with the same frame as equal.
+     *
+     * @param ellipse the ellipse to be removed.
+     */
+    protected void removeEllipse(Ellipse2D ellipse) {
+        ellipses.removeIf(el -> el == ellipse);
+        selectedEllipses.remove(ellipse);
+        ellipseIndex.remove(ellipse);
+    }
+    /**
+     * Finds the first ellipse containing the given point.
+     *
+     * @param point the point in model space.
+     * @return the ellipse containing the point, or {@code null} if there is none.
+     */
+    protected Ellipse2D findEllipseAt(Point point) {
+        return ellipseIndex.findFirst(point.x, point.y, 0, ellipse -> ellipse.contains(point));
     }
 
     @Override
     public void resetSelection() {
-        selectedEllipses = new ArrayList<>();
+        selectedEllipses.clear();
     }
 
     @Override
@@ -37,6 +74,7 @@ public class EllipseManager extends ShapeManager {
         super.newFrame();
         this.ellipses.clear();
         this.selectedEllipses.clear();
+        this.ellipseIndex.clear();
     }
 
     @Override
@@ -47,7 +85,7 @@ public class EllipseManager extends ShapeManager {
             } else {
                 int width = Math.abs(startPoint.x - e.getPoint().x);
                 int height = Math.abs(startPoint.y - e.getPoint().y);
-                ellipses.add(new Ellipse2D.Double(
+                addShape(new Ellipse2D.Double(
                     Math.min(startPoint.x, e.getPoint().x),
                     Math.min(startPoint.y, e.getPoint().y),
                     width, height
@@ -55,23 +93,13 @@ public class EllipseManager extends ShapeManager {
                 startPoint = null;
             }
         } else if (currentMode == ActionMode.DELETE) {
-            Ellipse2D selectedEllipse = ellipses.stream()
-                    .filter(ellipse -> ellipse.contains(e.getPoint()))
-                    .findFirst()
-                    .orElse(null);
-            if (selectedEllipse != null) {
-                ellipses.remove(selectedEllipse);
-                selectedEllipses.remove(selectedEllipse);
+            Rectangle2D area = new Rectangle2D.Double(e.getPoint().x, e.getPoint().y, 0, 0);
+            for (Ellipse2D ellipse : ellipseIndex.query(area)) {
+                if (ellipse.contains(e.getPoint())) removeEllipse(ellipse);
             }
-            ellipses.removeIf(ellipse -> ellipse.contains(e.getPoint()));
         } else if (currentMode == ActionMode.SELECT) {
-            Ellipse2D selectedEllipse = ellipses.stream()
-                .filter(ellipse -> ellipse.contains(e.getPoint()))
-                .findFirst()
-                .orElse(null);
-            if (selectedEllipse != null && selectedEllipses.contains(selectedEllipse))
-                selectedEllipses.remove(selectedEllipse);
-            else if (selectedEllipse != null) selectedEllipses.add(selectedEllipse);
+            Ellipse2D selectedEllipse = findEllipseAt(e.getPoint());
+            if (selectedEllipse != null) selectedEllipses.toggle(selectedEllipse);
         }
     }
 
@@ -88,19 +116,27 @@ public class EllipseManager extends ShapeManager {
                         selectedEllipse.getWidth(),
                         selectedEllipse.getHeight()
                 );
+                ellipseIndex.update(selectedEllipse);
             }
             selectedPoint = e.getPoint();
         }
     }
 
     @Override
-    public void paint(Graphics2D g2d) {
-        for (Ellipse2D ellipse : ellipses) {
-            g2d.setColor(Color.BLACK);
-            if (selectedEllipses.contains(ellipse)) g2d.setColor(Color.BLUE);
-            g2d.draw(ellipse);
+    public void paint(Graphics2D g2d, Rectangle2D viewport) {
+        // Unselected ellipses are drawn in a few batches, only the selected ones are drawn one by one
+        g2d.setColor(Color.BLACK);
+        for (Path2D batch : ellipseBatches.query(viewport, LevelOfDetail.getScale(g2d))) {
+            g2d.draw(batch);
+        }
+        g2d.setColor(Color.BLUE);
+        for (Ellipse2D ellipse : selectedEllipses) {
+            if (ellipse.getBounds2D().intersects(viewport)) g2d.draw(ellipse);
         }
+    }
 
+    @Override
+    public void paintPreview(Graphics2D g2d) {
         if (startPoint != null && currentMousePosition != null) {
             g2d.setColor(Color.RED);
             int width = Math.abs(startPoint.x - currentMousePosition.x);
@@ -150,16 +186,65 @@ public class EllipseManager extends ShapeManager {
     }
 
     @Override
-    public String toCSVString() {
-        StringBuilder stringBuilder = new StringBuilder();
+    public void writeScene(SceneWriter scene) throws IOException {
+        scene.startSection("Ellipse", 4);
         for (Ellipse2D ellipse : this.ellipses) {
-            stringBuilder.append("Ellipse,");
-            stringBuilder.append(ellipse.getX()).append(" ");
-            stringBuilder.append(ellipse.getY()).append(" ");
-            stringBuilder.append(ellipse.getWidth()).append(" ");
-            stringBuilder.append(ellipse.getHeight()).append(" ");
-            stringBuilder.append("\n");
+            scene.addValue(ellipse.getX());
+            scene.addValue(ellipse.getY());
+            scene.addValue(ellipse.getWidth());
+            scene.addValue(ellipse.getHeight());
+            scene.endShape();
         }
-        return stringBuilder.toString();
+    }
+
+    @Override
+    public void writeCSV(Appendable out) throws IOException {
+        for (Ellipse2D ellipse : this.ellipses) {
+            appendCSVRow(out, ellipse);
+        }
+    }
+
+    @Override
+    public void writeChanges(SyncWriter out) throws IOException {
+        ellipseIndex.writeChanges(out, this::appendCSVRow);
+    }
+
+    @Override
+    public void markSynced() {
+        ellipseIndex.markSynced();
+    }
+
+    @Override
+    public void markUnsynced() {
+        ellipseIndex.markUnsynced();
+    }
+
+    @Override
+    public boolean adoptRowIds(long[] ids) {
+        return ellipseIndex.adoptIds(ids);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return ellipseIndex.isEmpty();
+    }
+
+    /**
+     * Appends the CSV row of an ellipse.
+     *
+     * @param out     the output the row is appended to.
+     * @param ellipse the ellipse.
+     * @throws IOException if the output cannot be written.
+     */
+    protected void appendCSVRow(Appendable out, Ellipse2D ellipse) throws IOException {
+        out.append("Ellipse,");
+        appendNumber(out, ellipse.getX());
+        out.append(' ');
+        appendNumber(out, ellipse.getY());
+        out.append(' ');
+        appendNumber(out, ellipse.getWidth());
+        out.append(' ');
+        appendNumber(out, ellipse.getHeight());
+        out.append(" \n");
     }
 }
\ No newline at end of file
@@ -0,0 +1,145 @@
+package projectComponents;
+
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.LineString;
+import org.locationtech.jts.simplify.TopologyPreservingSimplifier;
+
+import java.awt.*;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.List;
+/**
+ * The `LevelOfDetail` class holds simplified versions of a vertex chain for drawing it at small scales.
+ * <p>
+ * The versions are computed once with the JTS `TopologyPreservingSimplifier` at doubling tolerances, starting at
+ * one model unit. When painting, the coarsest version whose tolerance is still below half a pixel at the current
+ * scale is drawn, so zoomed-out frames push far fewer vertices through Java2D without a visible difference.
+ * The versions are kept as AWT `Polygon` objects, which are drawn directly with `drawPolygon` or `drawPolyline`.
+ */
+public class LevelOfDetail {
+    /** Chains with fewer vertices are not worth simplifying. */
+    public static final int MIN_VERTICES = 8;
+    private static final double PIXEL_TOLERANCE = 0.5;// Largest deviation from the original chain, in pixels
+    private static final int MAX_LEVELS = 12;// Tolerances up to 2^11 model units
+
+    private final double[] tolerances;// Tolerance of every version in model units, ascending
+    private final Polygon[] versions;// Simplified versions, with decreasing vertex counts
+
+    private LevelOfDetail(List<Double> tolerances, List<Polygon> versions) {
+        this.tolerances = tolerances.stream().mapToDouble(Double::doubleValue).toArray();
+        this.versions = versions.toArray(new Polygon[0]);
+    }
+    /**
+     * Computes the simplified versions of a vertex chain.
+     *
+     * @param xPoints the x coordinates of the vertices.
+     * @param yPoints the y coordinates of the vertices.
+     * @param nPoints the number of vertices.
+     * @param closed  whether the chain is the outline of a polygon (true) or an open line (false).
+     * @return the simplified versions, or {@code null} if the chain is too short to be simplified.
+     */
+    public static LevelOfDetail of(int[] xPoints, int[] yPoints, int nPoints, boolean closed) {
+        if (nPoints < MIN_VERTICES) return null;
+
+        GeometryFactory factory = new GeometryFactory();
+        Coordinate[] coordinates = new Coordinate[closed ? nPoints + 1 : nPoints];
+        for (int i = 0; i < nPoints; i++) {
+            coordinates[i] = new Coordinate(xPoints[i], yPoints[i]);
+        }
+        if (closed) coordinates[nPoints] = coordinates[0];// Close the ring
+        Geometry geometry = closed ? factory.createPolygon(coordinates) : factory.createLineString(coordinates);
+
+        List<Double> tolerances = new ArrayList<>();
+        List<Polygon> versions = new ArrayList<>();
+        int vertices = nPoints;
+        double tolerance = 1;
+        for (int level = 0; level < MAX_LEVELS && vertices > (closed ? 3 : 2); level++, tolerance *= 2) {
+            Polygon version = toAwt(TopologyPreservingSimplifier.simplify(geometry, tolerance), closed);
+            if (version == null || version.npoints >= vertices) continue;
+
+            tolerances.add(tolerance);
+            versions.add(version);
+            vertices = version.npoints;
+        }
+        return versions.isEmpty() ? null : new LevelOfDetail(tolerances, versions);
+    }
+    /**
+     * Computes the simplified versions of a vertex chain stored as x/y pairs, truncated to whole units.
+     *
+     * @param coordinates the x/y pairs of the vertices.
+     * @param fromPoint   the index of the first vertex of the chain.
+     * @param toPoint     the index after the last vertex of the chain.
+     * @param closed      whether the chain is the outline of a polygon (true) or an open line (false).
+     * @return the simplified versions, or {@code null} if the chain is too short to be simplified.
+     */
+    public static LevelOfDetail of(double[] coordinates, int fromPoint, int toPoint, boolean closed) {
+        int nPoints = toPoint - fromPoint;
+        if (nPoints < MIN_VERTICES) return null;
+
+        int[] xPoints = new int[nPoints];
+        int[] yPoints = new int[nPoints];
+        for (int i = 0; i < nPoints; i++) {
+            xPoints[i] = (int) coordinates[2 * (fromPoint + i)];
+            yPoints[i] = (int) coordinates[2 * (fromPoint + i) + 1];
+        }
+        return of(xPoints, yPoints, nPoints, closed);
+    }
+    /**
+     * Picks the version to draw at the given scale.
+     *
+     * @param scale the scale factor from model space to pixels.
+     * @return the coarsest version that looks like the original chain, or {@code null} if the original is needed.
+     */
+    public Polygon forScale(double scale) {
+        Polygon version = null;
+        for (int i = 0; i < tolerances.length && tolerances[i] * scale <= PIXEL_TOLERANCE; i++) {
+            version = versions[i];
+        }
+        return version;
+    }
+    /**
+     * Retrieves the area covered by all versions.
+     *
+     * @return the bounds of the versions in model space, grown by one unit to cover the stroke.
+     */
+    public Rectangle2D getBounds() {
+        Rectangle2D bounds = versions[0].getBounds2D();
+        for (Polygon version : versions) bounds.add(version.getBounds2D());
+        bounds.setRect(bounds.getX() - 1, bounds.getY() - 1, bounds.getWidth() + 2, bounds.getHeight() + 2);
+        return bounds;
+    }
+    /**
+     * Moves all versions along with the original chain.
+     *
+     * @param dx the distance along the x axis.
+     * @param dy the distance along the y axis.
+     */
+    public void translate(int dx, int dy) {
+        for (Polygon version : versions) version.translate(dx, dy);
+    }
+    /**
+     * Retrieves the scale factor of a graphics context, i.e. the length of one model unit in pixels.
+     *
+     * @param g2d the graphics context with the view transform applied.
+     * @return the scale factor.
+     */
+    public static double getScale(Graphics2D g2d) {
+        return Math.sqrt(Math.abs(g2d.getTransform().getDeterminant()));
+    }
+
+    private static Polygon toAwt(Geometry geometry, boolean closed) {
+        if (geometry == null || geometry.isEmpty()) return null;
+
+        Geometry chain = geometry instanceof org.locationtech.jts.geom.Polygon polygon ? polygon.getExteriorRing() : geometry;
+        if (!(chain instanceof LineString)) return null;
+        Coordinate[] coordinates = chain.getCoordinates();
+        int nPoints = closed ? coordinates.length - 1 : coordinates.length;// Drop the closing coordinate of rings
+        Polygon version = new Polygon();
+        for (int i = 0; i < nPoints; i++) {
+            version.addPoint((int) Math.round(coordinates[i].x), (int) Math.round(coordinates[i].y));
+        }
+        return version;
+    }
+}
@@ -5,9 +5,14 @@ import org.locationtech.jts.geom.GeometryFactory;
 
 import java.awt.*;
 import java.awt.event.MouseEvent;
+import java.awt.geom.Path2D;
+import java.awt.geom.Rectangle2D;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
-import java.util.stream.IntStream;
+import java.util.Set;
 /**
  * The `LineManager` class is responsible for managing lines in a graphical application.
  * <p>
@@ -17,21 +22,96 @@ import java.util.stream.IntStream;
 
 public class LineManager extends ShapeManager {
     private final List<Line> lines = new ArrayList<>();
-    private List<Line> selectedLines = new ArrayList<>();
+    private final ShapeIndex<Line> lineIndex = new ShapeIndex<>(Line::getBounds, this::fireShapesChanged, true);// Spatial index of all lines, tracking their changes
+    private final ShapeSelection<Line> selectedLines = new ShapeSelection<>(line -> fireShapesChanged(lineIndex.getBounds(line)));
+    private final PathBatchCache<Line> lineBatches = new PathBatchCache<>(lineIndex, this::appendLines);// Unselected lines merged for painting
+    /**
+     * Constructs an empty line manager.
+     */
+    public LineManager() {
+        addShapeChangeListener(lineBatches::invalidate);
+    }
 
     @Override
     public void addShape(List<Double> xValues, List<Double> yValues) {
-        List<Point> points = IntStream.range(0, xValues.size())
-                .mapToObj(i -> new Point(xValues.get(i).intValue(), yValues.get(i).intValue()))
-                .toList();
-        for (int i = 0; i < points.size() - 1; i++) {
-            this.lines.add(new Line(points.get(i), points.get(i + 1)));
+        int[] xPoints = xValues.stream().mapToInt(Double::intValue).toArray();
+        int[] yPoints = yValues.stream().mapToInt(Double::intValue).toArray();
+
+        addPolyline(xPoints, yPoints, LevelOfDetail.of(xPoints, yPoints, xPoints.length, false));
+    }
+
+    @Override
+    public void addShapes(double[] coordinates, int[] partOffsets, LevelOfDetail[] levelsOfDetail) {
+        for (int part = 0; part < partOffsets.length; part++) {
+            int firstPoint = partOffsets[part];
+            int nPoints = getPartEnd(coordinates, partOffsets, part) - firstPoint;
+            int[] xPoints = new int[nPoints];
+            int[] yPoints = new int[nPoints];
+            for (int i = 0; i < nPoints; i++) {
+                xPoints[i] = (int) coordinates[2 * (firstPoint + i)];
+                yPoints[i] = (int) coordinates[2 * (firstPoint + i) + 1];
+            }
+
+            addPolyline(xPoints, yPoints, levelsOfDetail != null ? levelsOfDetail[part] : LevelOfDetail.of(xPoints, yPoints, nPoints, false));
+        }
+    }
+
+    private void addPolyline(int[] xPoints, int[] yPoints, LevelOfDetail levelOfDetail) {
+        // The segments of a long polyline share its simplified versions for drawing at small scales
+        Polyline polyline = levelOfDetail == null ? null : new Polyline(levelOfDetail, levelOfDetail.getBounds());
+        for (int i = 0; i < xPoints.length - 1; i++) {
+            // Every segment owns its end points, so moving one segment keeps the bounds of its neighbours valid
+            Line line = new Line(new Point(xPoints[i], yPoints[i]), new Point(xPoints[i + 1], yPoints[i + 1]));
+            line.polyline = polyline;
+            addLine(line);
+        }
+    }
+
+    private void addLine(Line line) {
+        lines.add(line);
+        lineIndex.insert(line);
+    }
+
+    private void appendLines(Path2D batch, List<Line> lines, double scale) {
+        Set<Polyline> appendedPolylines = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Line line : lines) {
+            if (selectedLines.contains(line)) continue;// Drawn on top in their own color
+
+            // Segments of a polyline with details smaller than a pixel are appended once as its simplified version
+            Polyline polyline = line.polyline;
+            LevelOfDetail levelOfDetail = polyline == null ? null : polyline.levelOfDetail;
+            Polygon version = levelOfDetail == null ? null : levelOfDetail.forScale(scale);
+            if (version == null) {
+                batch.moveTo(line.start.x, line.start.y);
+                batch.lineTo(line.end.x, line.end.y);
+            } else if (appendedPolylines.add(polyline)) {
+                batch.moveTo(version.xpoints[0], version.ypoints[0]);
+                for (int i = 1; i < version.npoints; i++) batch.lineTo(version.xpoints[i], version.ypoints[i]);
+            }
+        }
+    }
+
+    private void dissolvePolyline(Line line) {
+        // Once a segment is moved or deleted the simplified versions no longer match, so all segments are drawn
+        Polyline polyline = line.polyline;
+        line.polyline = null;
+        if (polyline != null && polyline.levelOfDetail != null) {
+            polyline.levelOfDetail = null;
+            fireShapesChanged(polyline.bounds);
         }
     }
 
+    private List<Line> findLinesAt(Point point) {
+        List<Line> found = new ArrayList<>();
+        for (Line line : lineIndex.query(new Rectangle2D.Double(point.x, point.y, 0, 0))) {
+            if (line.contains(point)) found.add(line);
+        }
+        return found;
+    }
+
     @Override
     public void resetSelection() {
-        selectedLines = new ArrayList<>();
+        selectedLines.clear();
     }
 
     @Override
@@ -39,6 +119,7 @@ public class LineManager extends ShapeManager {
         super.newFrame();
         this.lines.clear();
         this.selectedLines.clear();
+        this.lineIndex.clear();
     }
 
     @Override
@@ -47,16 +128,19 @@ public class LineManager extends ShapeManager {
             if (startPoint == null) {
                 startPoint = e.getPoint();
             } else {
-                lines.add(new Line(startPoint, e.getPoint()));
+                addLine(new Line(startPoint, e.getPoint()));
                 startPoint = null;
             }
         } else if (currentMode == ActionMode.DELETE) {
-            lines.removeIf(line -> line.contains(e.getPoint()));
-            selectedLines.removeIf(line -> line.contains(e.getPoint()));
+            for (Line line : findLinesAt(e.getPoint())) {
+                dissolvePolyline(line);
+                lines.remove(line);
+                selectedLines.remove(line);
+                lineIndex.remove(line);
+            }
         } else if (currentMode == ActionMode.SELECT) {
-            Line sLine = lines.stream().filter(line -> line.contains(e.getPoint())).findFirst().orElse(null);
-            if (sLine != null && selectedLines.contains(sLine)) selectedLines.remove(sLine);
-            else if (sLine != null) selectedLines.add(sLine);
+            Line sLine = lineIndex.findFirst(e.getPoint().x, e.getPoint().y, 0, line -> line.contains(e.getPoint()));
+            if (sLine != null) selectedLines.toggle(sLine);
         }
     }
 
@@ -67,22 +151,31 @@ public class LineManager extends ShapeManager {
                 int dx = e.getPoint().x - selectedPoint.x;
                 int dy = e.getPoint().y - selectedPoint.y;
 
+                dissolvePolyline(line);
                 line.start.translate(dx, dy);
                 line.end.translate(dx, dy);
+                lineIndex.update(line);
             }
             selectedPoint = e.getPoint();
         }
     }
 
     @Override
-    public void paint(Graphics2D g2d) {
-        for (Line line : lines) {
-            g2d.setColor(Color.BLACK);
-            if (selectedLines.contains(line)) g2d.setColor(Color.BLUE);
-            g2d.drawLine(line.start.x, line.start.y, line.end.x, line.end.y);
+    public void paint(Graphics2D g2d, Rectangle2D viewport) {
+        // Unselected lines are drawn in a few batches, only the selected ones are drawn one by one
+        g2d.setColor(Color.BLACK);
+        for (Path2D batch : lineBatches.query(viewport, LevelOfDetail.getScale(g2d))) {
+            g2d.draw(batch);
+        }
+        g2d.setColor(Color.BLUE);
+        for (Line line : selectedLines) {
+            if (line.getBounds().intersects(viewport)) g2d.drawLine(line.start.x, line.start.y, line.end.x, line.end.y);
         }
+    }
 
-        if (startPoint != null) {
+    @Override
+    public void paintPreview(Graphics2D g2d) {
+        if (startPoint != null && currentMousePosition != null) {
             g2d.setColor(Color.RED);
             g2d.drawLine(startPoint.x, startPoint.y, currentMousePosition.x, currentMousePosition.y);
         }
@@ -110,21 +203,62 @@ public class LineManager extends ShapeManager {
     }
 
     @Override
-    public String toCSVString() {
-        StringBuilder stringBuilder = new StringBuilder();
+    public void writeScene(SceneWriter scene) throws IOException {
+        scene.startSection("Line", 4);
+        for (Line line : this.lines) {
+            scene.addPoint(line.start.x, line.start.y);
+            scene.addPoint(line.end.x, line.end.y);
+            scene.endShape();
+        }
+    }
+
+    @Override
+    public void writeCSV(Appendable out) throws IOException {
         for (Line line : this.lines) {
-            stringBuilder.append("Line,");
-            stringBuilder.append("(").append(line.start.x).append(" ");
-            stringBuilder.append(line.start.y).append(") ");
-            stringBuilder.append("(").append(line.end.x).append(" ");
-            stringBuilder.append(line.end.y).append(")");
-            stringBuilder.append("\n");
+            appendCSVRow(out, line);
         }
-        return stringBuilder.toString();
+    }
+
+    @Override
+    public void writeChanges(SyncWriter out) throws IOException {
+        lineIndex.writeChanges(out, this::appendCSVRow);
+    }
+
+    @Override
+    public void markSynced() {
+        lineIndex.markSynced();
+    }
+
+    @Override
+    public void markUnsynced() {
+        lineIndex.markUnsynced();
+    }
+
+    @Override
+    public boolean adoptRowIds(long[] ids) {
+        return lineIndex.adoptIds(ids);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return lineIndex.isEmpty();
+    }
+
+    private void appendCSVRow(Appendable out, Line line) throws IOException {
+        out.append("Line,(");
+        appendNumber(out, line.start.x);
+        out.append(' ');
+        appendNumber(out, line.start.y);
+        out.append(") (");
+        appendNumber(out, line.end.x);
+        out.append(' ');
+        appendNumber(out, line.end.y);
+        out.append(")\n");
     }
 
     private static class Line {
         Point start, end;
+        Polyline polyline;// The imported polyline this segment belongs to, null if it is drawn on its own
 
         Line(Point start, Point end) {
             this.start = start;
@@ -143,5 +277,21 @@ public class LineManager extends ShapeManager {
             // Return true if the distance is less than 2
             return distance < 4;
         }
+
+        Rectangle2D getBounds() {
+            // Grown by the pick tolerance of contains(Point)
+            return new Rectangle2D.Double(Math.min(start.x, end.x) - 4, Math.min(start.y, end.y) - 4,
+                    Math.abs(end.x - start.x) + 8, Math.abs(end.y - start.y) + 8);
+        }
+    }
+
+    private static class Polyline {
+        volatile LevelOfDetail levelOfDetail;// Simplified versions of all segments, null once the polyline is broken up
+        final Rectangle2D bounds;// Area covered by the simplified versions
+
+        Polyline(LevelOfDetail levelOfDetail, Rectangle2D bounds) {
+            this.levelOfDetail = levelOfDetail;
+            this.bounds = bounds;
+        }
     }
 }
@@ -0,0 +1,279 @@
+package projectComponents;
+
+import org.geotools.api.data.Query;
+import org.geotools.api.data.SimpleFeatureSource;
+import org.geotools.api.feature.simple.SimpleFeature;
+import org.geotools.api.feature.simple.SimpleFeatureType;
+import org.geotools.api.filter.Filter;
+import org.geotools.api.filter.FilterFactory;
+import org.geotools.data.shapefile.ShapefileDataStore;
+import org.geotools.data.simple.SimpleFeatureIterator;
+import org.geotools.factory.CommonFactoryFinder;
+import org.geotools.geometry.jts.ReferencedEnvelope;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.LineString;
+import org.locationtech.jts.geom.Point;
+import org.locationtech.jts.geom.Polygon;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Path2D;
+import java.awt.geom.Rectangle2D;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+/**
+ * The `LinkedShapefileLayer` class shows a shapefile that stays on disk, loading only the features around the viewport.
+ * <p>
+ * Whenever the viewport leaves the area loaded last, the features intersecting the viewport and a margin of
+ * {@value #PREFETCH_MARGIN} times its size on every side are queried from the shapefile on a background thread,
+ * using a BBOX filter on its `.qix` spatial index, so panning a little does not touch the file again. The decoded
+ * features are kept in an LRU cache bounded to {@value #MAX_CACHED_VERTICES} vertices: a feature that is still
+ * cached is not converted again, and the least recently fetched features are dropped once the budget is exceeded,
+ * so even country-scale files are browsed with a small heap. A single query returns at most
+ * {@value #MAX_FEATURES_PER_FETCH} features, which bounds the work when the whole file is in view.
+ * <p>
+ * The layer is read-only: its features cannot be selected or edited and are neither exported nor saved.
+ */
+public class LinkedShapefileLayer extends ShapeLayer {
+    private static final double PREFETCH_MARGIN = 0.5;// Part of the viewport size fetched in addition on every side
+    private static final int MAX_FEATURES_PER_FETCH = 50_000;
+    private static final long MAX_CACHED_VERTICES = 2_000_000;
+
+    private final Consumer<IOException> errorHandler;// Called on the EDT if features cannot be read
+    private final ShapeIndex<Feature> featureIndex = new ShapeIndex<>(feature -> feature.bounds, this::fireShapesChanged);// Spatial index of the cached features
+    private final PathBatchCache<Feature> featureBatches = new PathBatchCache<>(featureIndex, (batch, features, scale) -> {
+        for (Feature feature : features) {
+            batch.append(feature.path, false);
+        }
+    });// All cached features merged for painting
+    private final Map<String, Feature> cache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true));// Cached features by feature id, in LRU order
+    private long cachedVertices = 0;// Vertices of all cached features, only changed on the EDT
+    private Link link;// Shapefile currently linked, null if none
+    private Rectangle2D loadedArea;// Area fetched last, null if nothing has been fetched yet
+    private double loadedViewportWidth;// Width of the viewport the loaded area has been fetched for
+    private boolean loadedAreaTruncated;// Whether the query of the loaded area returned the maximum number of features
+    private Rectangle2D requestedArea;// Area to be fetched by the loader thread, null if none
+    private Link requestedLink;// Shapefile the area is fetched from
+    private Link fetchingLink;// Shapefile the loader thread is querying right now, null if none
+    /**
+     * Constructs an empty layer and starts its loader thread.
+     *
+     * @param errorHandler called on the EDT if features cannot be read from the linked file.
+     */
+    public LinkedShapefileLayer(Consumer<IOException> errorHandler) {
+        this.errorHandler = errorHandler;
+        addShapeChangeListener(featureBatches::invalidate);
+        Thread loaderThread = new Thread(this::loadFeatures, "linked-layer-loader");
+        loaderThread.setDaemon(true);
+        loaderThread.start();
+    }
+    /**
+     * Links a shapefile to the layer, replacing the file linked before; a `.qix` index is created if it does not exist.
+     *
+     * @param file the `.shp` file.
+     * @return the bounding box of all features of the file.
+     * @throws IOException if the file cannot be opened.
+     */
+    public Rectangle2D link(File file) throws IOException {
+        unlink();
+        ShapefileDataStore store = new ShapefileDataStore(file.toURI().toURL());
+        try {
+            store.setIndexed(true);
+            store.setIndexCreationEnabled(true);
+            link = new Link(store, store.getFeatureSource());
+            ReferencedEnvelope envelope = link.source.getBounds();
+            return new Rectangle2D.Double(envelope.getMinX(), envelope.getMinY(), envelope.getWidth(), envelope.getHeight());
+        } catch (IOException | RuntimeException e) {
+            link = null;
+            store.dispose();
+            throw e;
+        }
+    }
+    /**
+     * Closes the linked shapefile and drops all cached features.
+     */
+    public void unlink() {
+        if (link == null) return;
+        synchronized (this) {
+            // The loader thread disposes the store once a running query has ended
+            link.closed = true;
+            if (fetchingLink != link) link.store.dispose();
+            requestedArea = null;
+            requestedLink = null;
+        }
+        link = null;
+        loadedArea = null;
+        cache.clear();
+        cachedVertices = 0;
+        featureIndex.clear();
+    }
+    /**
+     * Loads the features around the given viewport in the background, unless they have been loaded already.
+     *
+     * @param viewport the area shown by the panel, in model space.
+     */
+    public void setViewport(Rectangle2D viewport) {
+        if (link == null || viewport.isEmpty()) return;
+        // A truncated area is fetched again once the user zooms in, so the features left out appear
+        if (loadedArea != null && loadedArea.contains(viewport) && (!loadedAreaTruncated || viewport.getWidth() >= loadedViewportWidth)) return;
+        loadedViewportWidth = viewport.getWidth();
+        loadedAreaTruncated = false;
+        loadedArea = new Rectangle2D.Double(viewport.getX() - PREFETCH_MARGIN * viewport.getWidth(),
+                viewport.getY() - PREFETCH_MARGIN * viewport.getHeight(),
+                (1 + 2 * PREFETCH_MARGIN) * viewport.getWidth(), (1 + 2 * PREFETCH_MARGIN) * viewport.getHeight());
+        synchronized (this) {
+            // Replaces an area not fetched yet, so only the latest viewport is loaded while the user keeps panning
+            requestedArea = loadedArea;
+            requestedLink = link;
+            notifyAll();
+        }
+    }
+
+    private void loadFeatures() {
+        while (true) {
+            Rectangle2D area;
+            Link source;
+            synchronized (this) {
+                while (requestedArea == null) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                area = requestedArea;
+                source = requestedLink;
+                fetchingLink = source;
+                requestedArea = null;
+            }
+
+            try {
+                List<Feature> features = fetch(source, area);
+                SwingUtilities.invokeLater(() -> addFeatures(source, area, features));
+            } catch (IOException e) {
+                SwingUtilities.invokeLater(() -> {
+                    if (source == link) errorHandler.accept(e);
+                });
+            } finally {
+                synchronized (this) {
+                    fetchingLink = null;
+                    if (source.closed) source.store.dispose();
+                }
+            }
+        }
+    }
+
+    private List<Feature> fetch(Link source, Rectangle2D area) throws IOException {
+        SimpleFeatureType schema = source.source.getSchema();
+        String geometryName = schema.getGeometryDescriptor().getLocalName();
+        FilterFactory filterFactory = CommonFactoryFinder.getFilterFactory();
+        Filter filter = filterFactory.bbox(filterFactory.property(geometryName), new ReferencedEnvelope(area.getMinX(),
+                area.getMaxX(), area.getMinY(), area.getMaxY(), schema.getCoordinateReferenceSystem()));
+        Query query = new Query(schema.getTypeName(), filter, new String[]{geometryName});
+        query.setMaxFeatures(MAX_FEATURES_PER_FETCH);
+
+        List<Feature> features = new ArrayList<>();
+        try (SimpleFeatureIterator iterator = source.source.getFeatures(query).features()) {
+            while (iterator.hasNext() && !source.closed) {
+                SimpleFeature simpleFeature = iterator.next();
+                // Also marks the cached feature as recently used, so it is not dropped for the new ones
+                Feature feature = cache.get(simpleFeature.getID());
+                features.add(feature != null ? feature : new Feature(simpleFeature.getID(), (Geometry) simpleFeature.getDefaultGeometry()));
+            }
+        }
+        return features;
+    }
+
+    private void addFeatures(Link source, Rectangle2D area, List<Feature> features) {
+        if (source != link) return;
+        if (area == loadedArea && features.size() >= MAX_FEATURES_PER_FETCH) loadedAreaTruncated = true;
+        // The tiles are only invalidated once for all fetched features
+        beginUpdate();
+        try {
+            for (Feature feature : features) {
+                if (cache.putIfAbsent(feature.id, feature) != null) continue;
+                featureIndex.insert(feature);
+                cachedVertices += feature.vertexCount;
+            }
+            synchronized (cache) {
+                Iterator<Feature> iterator = cache.values().iterator();
+                while (cachedVertices > MAX_CACHED_VERTICES && iterator.hasNext()) {
+                    Feature feature = iterator.next();
+                    iterator.remove();
+                    featureIndex.remove(feature);
+                    cachedVertices -= feature.vertexCount;
+                }
+            }
+        } finally {
+            endUpdate();
+        }
+    }
+
+    @Override
+    public void paint(Graphics2D g2d, Rectangle2D viewport) {
+        g2d.setColor(Color.GRAY);
+        for (Path2D batch : featureBatches.query(viewport, LevelOfDetail.getScale(g2d))) {
+            g2d.draw(batch);
+        }
+    }
+
+    private static class Link {
+        final ShapefileDataStore store;
+        final SimpleFeatureSource source;
+        volatile boolean closed;// Set once the file has been unlinked
+
+        Link(ShapefileDataStore store, SimpleFeatureSource source) {
+            this.store = store;
+            this.source = source;
+        }
+    }
+
+    private static class Feature {
+        final String id;
+        final Path2D path;// Outline of all parts of the geometry, in model space
+        final Rectangle2D bounds;
+        final int vertexCount;
+
+        Feature(String id, Geometry geometry) {
+            this.id = id;
+            this.path = new Path2D.Float();
+            for (int i = 0; i < geometry.getNumGeometries(); i++) {
+                appendPart(path, geometry.getGeometryN(i));
+            }
+            this.bounds = path.getBounds2D();
+            this.vertexCount = geometry.getNumPoints();
+        }
+
+        private static void appendPart(Path2D path, Geometry part) {
+            if (part instanceof Polygon polygon) {
+                appendLine(path, polygon.getExteriorRing().getCoordinates(), true);
+                for (int i = 0; i < polygon.getNumInteriorRing(); i++) {
+                    appendLine(path, polygon.getInteriorRingN(i).getCoordinates(), true);
+                }
+            } else if (part instanceof LineString) {
+                appendLine(path, part.getCoordinates(), false);
+            } else if (part instanceof Point) {
+                Coordinate point = part.getCoordinate();
+                path.append(new Ellipse2D.Double(point.x - 3, point.y - 3, 6, 6), false);
+            }
+        }
+
+        private static void appendLine(Path2D path, Coordinate[] coordinates, boolean closed) {
+            if (coordinates.length == 0) return;
+            path.moveTo(coordinates[0].x, coordinates[0].y);
+            for (int i = 1; i < coordinates.length; i++) {
+                path.lineTo(coordinates[i].x, coordinates[i].y);
+            }
+            if (closed) path.closePath();
+        }
+    }
+}
@@ -0,0 +1,311 @@
+package projectComponents;
+
+import java.awt.geom.Rectangle2D;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+/**
+ * The `MappedShapefileReader` class decodes the geometries of a shapefile directly from the memory-mapped `.shp`
+ * and `.shx` files.
+ * <p>
+ * Only the geometry is read: the records are decoded straight from the mapped pages into `ShapeBuffer`s, without
+ * creating features, JTS geometries or `Coordinate` objects, and the attributes in the `.dbf` file are ignored.
+ * The record offsets are taken from the `.shx` index, so any range of records can be decoded on its own and
+ * several threads may decode different ranges at the same time. Files larger than 2 GB are mapped in several
+ * overlapping segments, so each record lies completely inside one of them.
+ * <p>
+ * Polygon, polyline, point and multipoint records are supported, including their Z and M variants whose extra
+ * values are skipped; `canRead` rejects files of other shape types, which are imported with GeoTools instead. The
+ * rings of a polygon record are grouped like GeoTools groups them: every clockwise ring is a shell, and every
+ * counter-clockwise ring is a hole of the smallest shell containing it. A shell and its holes become one shape, as
+ * the coordinates of a JTS polygon do, and every part of a polyline becomes a shape of its own.
+ */
+public class MappedShapefileReader implements Closeable {
+    private static final int FILE_CODE = 9994;// Magic number at the start of `.shp` and `.shx` files
+    private static final int HEADER_SIZE = 100;// Size of the file header of `.shp` and `.shx` files
+    private static final int INDEX_RECORD_SIZE = 8;// Size of a record in the `.shx` file
+    private static final int RECORD_HEADER_SIZE = 8;// Size of the record header preceding every record in the `.shp` file
+    private static final long SEGMENT_SIZE = 1L << 30;// Bytes of the `.shp` file a segment starts with
+
+    private static final int NULL_SHAPE = 0;
+    private static final int POINT = 1, POINT_Z = 11, POINT_M = 21;
+    private static final int POLYLINE = 3, POLYLINE_Z = 13, POLYLINE_M = 23;
+    private static final int POLYGON = 5, POLYGON_Z = 15, POLYGON_M = 25;
+    private static final int MULTIPOINT = 8, MULTIPOINT_Z = 18, MULTIPOINT_M = 28;
+
+    private final FileChannel shpChannel;
+    private final FileChannel shxChannel;
+    private final ByteBuffer index;// Mapped `.shx` file, big-endian like its record offsets
+    private final ByteBuffer[] segments;// Mapped segments of the `.shp` file, little-endian like its record contents
+    private final int recordCount;
+    private final Rectangle2D bounds;// Bounding box of all records from the `.shp` header
+    /**
+     * Opens and maps a shapefile; its `.shx` file must be next to it.
+     *
+     * @param shpFile the `.shp` file.
+     * @throws IOException if the files cannot be read or are not valid shapefiles.
+     */
+    public MappedShapefileReader(File shpFile) throws IOException {
+        File shxFile = getIndexFile(shpFile);
+        if (shxFile == null) throw new IOException("No .shx index found for " + shpFile.getName());
+        shpChannel = FileChannel.open(shpFile.toPath(), StandardOpenOption.READ);
+        try {
+            shxChannel = FileChannel.open(shxFile.toPath(), StandardOpenOption.READ);
+            try {
+                index = shxChannel.map(FileChannel.MapMode.READ_ONLY, 0, shxChannel.size());
+                if (index.limit() < HEADER_SIZE || index.getInt(0) != FILE_CODE) {
+                    throw new IOException(shxFile.getName() + " is not a shapefile index");
+                }
+                recordCount = (index.limit() - HEADER_SIZE) / INDEX_RECORD_SIZE;
+                segments = mapSegments();
+                ByteBuffer header = segments[0];
+                if (header.limit() < HEADER_SIZE || Integer.reverseBytes(header.getInt(0)) != FILE_CODE) {
+                    throw new IOException(shpFile.getName() + " is not a shapefile");
+                }
+                if (!isSupported(header.getInt(32))) throw new IOException("Unsupported shape type " + header.getInt(32));
+                bounds = new Rectangle2D.Double(header.getDouble(36), header.getDouble(44),
+                        header.getDouble(52) - header.getDouble(36), header.getDouble(60) - header.getDouble(44));
+            } catch (IOException | RuntimeException e) {
+                shxChannel.close();
+                throw e;
+            }
+        } catch (IOException | RuntimeException e) {
+            shpChannel.close();
+            throw e;
+        }
+    }
+    /**
+     * Checks whether a shapefile can be read by this class, i.e. whether its `.shx` index exists and the shape type in
+     * the header of the `.shp` file is supported.
+     *
+     * @param shpFile the `.shp` file.
+     * @return true if the shapefile can be read, false if it has to be read with GeoTools.
+     */
+    public static boolean canRead(File shpFile) {
+        if (getIndexFile(shpFile) == null) return false;
+        try (FileChannel channel = FileChannel.open(shpFile.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // Reads the whole header
+            }
+            return !header.hasRemaining() && isSupported(header.getInt(32));
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static boolean isSupported(int shapeType) {
+        return switch (shapeType) {
+            case NULL_SHAPE, POINT, POINT_Z, POINT_M, POLYLINE, POLYLINE_Z, POLYLINE_M, POLYGON, POLYGON_Z, POLYGON_M,
+                 MULTIPOINT, MULTIPOINT_Z, MULTIPOINT_M -> true;
+            default -> false;
+        };
+    }
+
+    private static File getIndexFile(File shpFile) {
+        String name = shpFile.getName();
+        int extension = name.lastIndexOf('.');
+        String baseName = extension < 0 ? name : name.substring(0, extension);
+        for (String suffix : new String[]{".shx", ".SHX"}) {
+            File shxFile = new File(shpFile.getParentFile(), baseName + suffix);
+            if (shxFile.isFile()) return shxFile;
+        }
+        return null;
+    }
+
+    private ByteBuffer[] mapSegments() throws IOException {
+        // Every segment extends by the largest record, so a record starting in a segment also ends in it
+        long maxRecordSize = 0;
+        for (int i = 0; i < recordCount; i++) {
+            maxRecordSize = Math.max(maxRecordSize, RECORD_HEADER_SIZE + 2L * index.getInt(HEADER_SIZE + INDEX_RECORD_SIZE * i + 4));
+        }
+        long fileSize = shpChannel.size();
+        if (maxRecordSize > Integer.MAX_VALUE - SEGMENT_SIZE) throw new IOException("Shapefile record too large");
+        ByteBuffer[] result = new ByteBuffer[(int) Math.max(1, (fileSize + SEGMENT_SIZE - 1) / SEGMENT_SIZE)];
+        for (int i = 0; i < result.length; i++) {
+            long start = i * SEGMENT_SIZE;
+            long size = Math.min(fileSize - start, SEGMENT_SIZE + maxRecordSize);
+            result[i] = shpChannel.map(FileChannel.MapMode.READ_ONLY, start, size).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        return result;
+    }
+    /**
+     * Retrieves the number of records in the shapefile.
+     *
+     * @return the number of records.
+     */
+    public int getRecordCount() {
+        return recordCount;
+    }
+    /**
+     * Retrieves the bounding box of all records, as stored in the file header.
+     *
+     * @return the bounding box in the coordinates of the shapefile.
+     */
+    public Rectangle2D getBounds() {
+        return (Rectangle2D) bounds.clone();
+    }
+    /**
+     * Decodes a range of records and appends their shapes to the buffers of their type. Different ranges may be
+     * decoded by different threads at the same time.
+     *
+     * @param from     the index of the first record to be decoded.
+     * @param to       the index after the last record to be decoded.
+     * @param polygons the buffer the polygons are appended to, every shell followed by its holes.
+     * @param lines    the buffer the parts of polylines are appended to.
+     * @param points   the buffer points and multipoints are appended to.
+     * @throws IOException if a record has an unsupported shape type.
+     */
+    public void read(int from, int to, ShapeBuffer polygons, ShapeBuffer lines, ShapeBuffer points) throws IOException {
+        for (int i = from; i < to; i++) {
+            long offset = 2L * index.getInt(HEADER_SIZE + INDEX_RECORD_SIZE * i);
+            int segment = (int) (offset / SEGMENT_SIZE);
+            readRecord(segments[segment], (int) (offset - segment * SEGMENT_SIZE) + RECORD_HEADER_SIZE, polygons, lines, points);
+        }
+    }
+
+    private static void readRecord(ByteBuffer buffer, int position, ShapeBuffer polygons, ShapeBuffer lines, ShapeBuffer points) throws IOException {
+        // Only absolute reads, so the shared buffers are never modified
+        int shapeType = buffer.getInt(position);
+        switch (shapeType) {
+            case NULL_SHAPE:
+                break;
+            case POINT, POINT_Z, POINT_M:
+                points.startPart();
+                points.addPoint(buffer.getDouble(position + 4), buffer.getDouble(position + 12));
+                points.endPart();
+                break;
+            case MULTIPOINT, MULTIPOINT_Z, MULTIPOINT_M:
+                // Shape type, bounding box, number of points, points
+                int pointCount = buffer.getInt(position + 36);
+                points.startPart();
+                readPoints(buffer, position + 40, 0, pointCount, points);
+                points.endPart();
+                break;
+            case POLYLINE, POLYLINE_Z, POLYLINE_M:
+                // Shape type, bounding box, number of parts, number of points, index of the first point of every part, points
+                int[] partStarts = readPartStarts(buffer, position);
+                int pointsPosition = position + 44 + 4 * (partStarts.length - 1);
+                for (int part = 0; part + 1 < partStarts.length; part++) {
+                    lines.startPart();
+                    readPoints(buffer, pointsPosition, partStarts[part], partStarts[part + 1], lines);
+                    lines.endPart();
+                }
+                break;
+            case POLYGON, POLYGON_Z, POLYGON_M:
+                readPolygon(buffer, position, polygons);
+                break;
+            default:
+                throw new IOException("Unsupported shape type " + shapeType);
+        }
+    }
+
+    private static int[] readPartStarts(ByteBuffer buffer, int position) {
+        // The index of the first point of every part, followed by the number of points
+        int partCount = buffer.getInt(position + 36);
+        int[] partStarts = new int[partCount + 1];
+        for (int part = 0; part < partCount; part++) partStarts[part] = buffer.getInt(position + 44 + 4 * part);
+        partStarts[partCount] = buffer.getInt(position + 40);
+        return partStarts;
+    }
+
+    private static void readPolygon(ByteBuffer buffer, int position, ShapeBuffer polygons) {
+        int[] ringStarts = readPartStarts(buffer, position);
+        int ringCount = ringStarts.length - 1;
+        int pointsPosition = position + 44 + 4 * ringCount;
+        boolean[] holes = new boolean[ringCount];
+        boolean hasShell = false;
+        for (int ring = 0; ring < ringCount; ring++) {
+            holes[ring] = getSignedArea(buffer, pointsPosition, ringStarts[ring], ringStarts[ring + 1]) > 0;
+            hasShell |= !holes[ring];
+        }
+
+        // A hole belongs to the smallest shell containing it; without any shell, or any shell containing it, a
+        // counter-clockwise ring is a shell itself
+        int[] shells = new int[ringCount];
+        for (int ring = 0; ring < ringCount; ring++) {
+            shells[ring] = ring;
+            if (!hasShell || !holes[ring]) continue;
+            Rectangle2D holeBounds = getBounds(buffer, pointsPosition, ringStarts[ring], ringStarts[ring + 1]);
+            double x = buffer.getDouble(pointsPosition + 16 * ringStarts[ring]);
+            double y = buffer.getDouble(pointsPosition + 16 * ringStarts[ring] + 8);
+            double smallestArea = Double.POSITIVE_INFINITY;
+            for (int shell = 0; shell < ringCount; shell++) {
+                if (holes[shell]) continue;
+                Rectangle2D shellBounds = getBounds(buffer, pointsPosition, ringStarts[shell], ringStarts[shell + 1]);
+                double area = shellBounds.getWidth() * shellBounds.getHeight();
+                if (area < smallestArea && shellBounds.contains(holeBounds)
+                        && contains(buffer, pointsPosition, ringStarts[shell], ringStarts[shell + 1], x, y)) {
+                    smallestArea = area;
+                    shells[ring] = shell;
+                }
+            }
+        }
+
+        for (int shell = 0; shell < ringCount; shell++) {
+            if (shells[shell] != shell) continue;
+            polygons.startPart();
+            readPoints(buffer, pointsPosition, ringStarts[shell], ringStarts[shell + 1], polygons);
+            for (int ring = 0; ring < ringCount; ring++) {
+                // The holes of a shell may come before it in the record
+                if (ring != shell && shells[ring] == shell) readPoints(buffer, pointsPosition, ringStarts[ring], ringStarts[ring + 1], polygons);
+            }
+            polygons.endPart();
+        }
+    }
+
+    private static double getSignedArea(ByteBuffer buffer, int position, int from, int to) {
+        // Positive for counter-clockwise rings, which are holes in shapefiles
+        double area = 0;
+        for (int i = from; i + 1 < to; i++) {
+            area += buffer.getDouble(position + 16 * i) * buffer.getDouble(position + 16 * (i + 1) + 8)
+                    - buffer.getDouble(position + 16 * (i + 1)) * buffer.getDouble(position + 16 * i + 8);
+        }
+        return area / 2;
+    }
+
+    private static Rectangle2D getBounds(ByteBuffer buffer, int position, int from, int to) {
+        Rectangle2D bounds = null;
+        for (int i = from; i < to; i++) {
+            double x = buffer.getDouble(position + 16 * i);
+            double y = buffer.getDouble(position + 16 * i + 8);
+            if (bounds == null) bounds = new Rectangle2D.Double(x, y, 0, 0);
+            else bounds.add(x, y);
+        }
+        return bounds == null ? new Rectangle2D.Double() : bounds;
+    }
+
+    private static boolean contains(ByteBuffer buffer, int position, int from, int to, double x, double y) {
+        // Counts the crossings of a ray from the point to the right with the edges of the ring
+        boolean inside = false;
+        for (int i = from, j = to - 1; i < to; j = i++) {
+            double xi = buffer.getDouble(position + 16 * i), yi = buffer.getDouble(position + 16 * i + 8);
+            double xj = buffer.getDouble(position + 16 * j), yj = buffer.getDouble(position + 16 * j + 8);
+            if ((yi > y) != (yj > y) && x < (xj - xi) * (y - yi) / (yj - yi) + xi) inside = !inside;
+        }
+        return inside;
+    }
+
+    private static void readPoints(ByteBuffer buffer, int position, int from, int to, ShapeBuffer target) {
+        for (int i = from; i < to; i++) {
+            target.addPoint(buffer.getDouble(position + 16 * i), buffer.getDouble(position + 16 * i + 8));
+        }
+    }
+    /**
+     * Closes the files; the mapped memory is released once the reader is no longer referenced.
+     *
+     * @throws IOException if a file cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            shpChannel.close();
+        } finally {
+            shxChannel.close();
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package projectComponents;
+
+import java.awt.geom.Rectangle2D;
+import java.io.Closeable;
+import java.io.IOException;
+/**
+ * The `ObjectSource` interface provides stored objects by area, e.g. the rows of a database table with an index on
+ * their bounding boxes. It is queried by the `DatabaseLayer` from its loader thread.
+ */
+public interface ObjectSource extends Closeable {
+    /**
+     * Reads the objects whose bounding boxes intersect an area.
+     *
+     * @param area       the area in model space.
+     * @param maxObjects the maximum number of objects to read.
+     * @param consumer   receives every object read.
+     * @throws IOException if the objects cannot be read.
+     */
+    void readObjects(Rectangle2D area, int maxObjects, ObjectConsumer consumer) throws IOException;
+    /**
+     * Sets the listener notified after the stored objects have changed, e.g. because the database table has been
+     * written; sources whose objects do not change ignore it.
+     *
+     * @param listener called on any thread after every change, null for none.
+     */
+    default void setChangeListener(Runnable listener) {}
+    /**
+     * The `ObjectConsumer` interface receives the objects read by an `ObjectSource`.
+     */
+    @FunctionalInterface
+    interface ObjectConsumer {
+        /**
+         * Receives one object.
+         *
+         * @param id          the id identifying the object in the source.
+         * @param type        the type of the object, e.g. `Polygon`.
+         * @param description the description of the object in the CSV format, e.g. `(10 20) (30 40) (10 40)`.
+         */
+        void accept(long id, String type, String description);
+    }
+}
@@ -0,0 +1,142 @@
+package projectComponents;
+
+import java.awt.geom.Path2D;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+/**
+ * The `PathBatchCache` class merges the shapes of a `ShapeManager` into a few large `Path2D` batches for painting.
+ * <p>
+ * Drawing tens of thousands of shapes one by one is dominated by the overhead of each Java2D call, while one
+ * path holding all of them is drawn in a single call. The model space is cut into a grid of cells and each cell
+ * gets its own batch, built from the shapes intersecting it, so painting a viewport takes one draw call per
+ * overlapping cell. Batches are kept until the shapes inside their cell change, and separately for every power
+ * of two of the scale, so the builder may use the level of detail matching the scale.
+ * <p>
+ * The cache is thread-safe and bounded to the most recently used {@value #MAX_BATCHES} batches.
+ *
+ * @param <T> the type of the batched shapes.
+ */
+public class PathBatchCache<T> {
+    private static final double CELL_SIZE = 512;// Width and height of a cell in pixels
+    private static final int MAX_BATCHES = 4096;
+
+    private final ShapeIndex<T> index;// Index the shapes of a cell are queried from
+    private final BatchBuilder<T> builder;// Appends the shapes of a cell to its batch
+    private final LinkedHashMap<CellKey, Path2D> batches = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<CellKey, Path2D> eldest) {
+            return size() > MAX_BATCHES;
+        }
+    };// Built batches in LRU order
+    private long generation = 0;// Increased on every change, so batches built from outdated shapes are not cached
+    /**
+     * Appends shapes to a batch.
+     *
+     * @param <T> the type of the batched shapes.
+     */
+    @FunctionalInterface
+    public interface BatchBuilder<T> {
+        /**
+         * Appends the given shapes to the batch of a cell; shapes may be skipped, e.g. if they are drawn in another style.
+         *
+         * @param batch  the batch.
+         * @param shapes the shapes intersecting the cell, in the order they were added.
+         * @param scale  the scale the batch is built for, at least the scale it is painted at.
+         */
+        void append(Path2D batch, List<T> shapes, double scale);
+    }
+    /**
+     * Constructs an empty cache.
+     *
+     * @param index   the index holding the shapes.
+     * @param builder the builder appending the shapes of a cell to its batch.
+     */
+    public PathBatchCache(ShapeIndex<T> index, BatchBuilder<T> builder) {
+        this.index = index;
+        this.builder = builder;
+    }
+    /**
+     * Retrieves the batches covering the given area, building the missing ones.
+     *
+     * @param viewport the area in model space.
+     * @param scale    the scale factor the batches are painted at.
+     * @return the batches of all cells intersecting the area.
+     */
+    public List<Path2D> query(Rectangle2D viewport, double scale) {
+        // Rounded up, so the batches never hold coarser versions of the shapes than the scale allows
+        int level = (int) Math.ceil(Math.log(scale) / Math.log(2) - 1e-9);
+        double cellSize = CELL_SIZE / Math.pow(2, level);
+        int minX = (int) Math.floor(viewport.getMinX() / cellSize);
+        int minY = (int) Math.floor(viewport.getMinY() / cellSize);
+        int maxX = (int) Math.floor(viewport.getMaxX() / cellSize);
+        int maxY = (int) Math.floor(viewport.getMaxY() / cellSize);
+
+        List<Path2D> result = new ArrayList<>();
+        for (int y = minY; y <= maxY; y++) {
+            for (int x = minX; x <= maxX; x++) {
+                result.add(getBatch(new CellKey(level, x, y), cellSize));
+            }
+        }
+        return result;
+    }
+    /**
+     * Drops the batches of all cells overlapping the given area, so they are built again from the changed shapes.
+     *
+     * @param bounds the changed area in model space.
+     */
+    public synchronized void invalidate(Rectangle2D bounds) {
+        generation++;
+        Iterator<CellKey> iterator = batches.keySet().iterator();
+        while (iterator.hasNext()) {
+            CellKey key = iterator.next();
+            double cellSize = CELL_SIZE / Math.pow(2, key.level);
+            if (bounds.intersects(key.x * cellSize, key.y * cellSize, cellSize, cellSize)) iterator.remove();
+        }
+    }
+
+    private Path2D getBatch(CellKey key, double cellSize) {
+        long builtGeneration;
+        synchronized (this) {
+            Path2D batch = batches.get(key);
+            if (batch != null) return batch;
+            builtGeneration = generation;
+        }
+
+        // Built outside the lock, so render threads build the batches of different cells in parallel
+        Path2D batch = new Path2D.Float();
+        Rectangle2D cell = new Rectangle2D.Double(key.x * cellSize, key.y * cellSize, cellSize, cellSize);
+        builder.append(batch, index.query(cell), Math.pow(2, key.level));
+        synchronized (this) {
+            if (generation == builtGeneration) batches.put(key, batch);
+        }
+        return batch;
+    }
+
+    private static class CellKey {
+        final int level;// Exponent of the power of two the scale has been rounded up to
+        final int x, y;
+
+        CellKey(int level, int x, int y) {
+            this.level = level;
+            this.x = x;
+            this.y = y;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof CellKey)) return false;
+            CellKey other = (CellKey) o;
+            return level == other.level && x == other.x && y == other.y;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(level, x, y);
+        }
+    }
+}
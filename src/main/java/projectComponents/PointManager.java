@@ -2,6 +2,10 @@ package projectComponents;
 
 import java.awt.*;
 import java.awt.event.MouseEvent;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Path2D;
+import java.awt.geom.Rectangle2D;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -16,18 +20,43 @@ import org.locationtech.jts.geom.GeometryFactory;
 
 public class PointManager extends ShapeManager {
     private final List<Point> points = new ArrayList<>();
-    private List<Point> selectedPoints = new ArrayList<>();
+    private final ShapeIndex<Point> pointIndex = new ShapeIndex<>(PointManager::getMarkerBounds, this::fireShapesChanged, true);// Spatial index of all points, tracking their changes
+    private final ShapeSelection<Point> selectedPoints = new ShapeSelection<>(point -> fireShapesChanged(pointIndex.getBounds(point)));
+    private final PathBatchCache<Point> pointBatches = new PathBatchCache<>(pointIndex, (batch, points, scale) -> {
+        for (Point point : points) {
+            batch.append(new Ellipse2D.Double(point.x - 3, point.y - 3, 6, 6), false);
+        }
+    });// All points merged for painting
+    /**
+     * Constructs an empty point manager.
+     */
+    public PointManager() {
+        addShapeChangeListener(pointBatches::invalidate);
+    }
 
     @Override
     public void addShape(List<Double> xValues, List<Double> yValues) {
         for (int i = 0; i < xValues.size(); i++) {
-            points.add(new Point(xValues.get(i).intValue(), yValues.get(i).intValue()));
+            addPoint(new Point(xValues.get(i).intValue(), yValues.get(i).intValue()));
         }
     }
 
+    @Override
+    public void addShapes(double[] coordinates, int[] partOffsets, LevelOfDetail[] levelsOfDetail) {
+        // Every coordinate is a point of its own, whichever shape it belongs to
+        for (int i = 0; i + 1 < coordinates.length; i += 2) {
+            addPoint(new Point((int) coordinates[i], (int) coordinates[i + 1]));
+        }
+    }
+
+    private void addPoint(Point point) {
+        points.add(point);
+        pointIndex.insert(point);
+    }
+
     @Override
     public void resetSelection() {
-        selectedPoints = new ArrayList<>();
+        selectedPoints.clear();
     }
 
     @Override
@@ -35,25 +64,26 @@ public class PointManager extends ShapeManager {
         super.newFrame();
         this.points.clear();
         this.selectedPoints.clear();
+        this.pointIndex.clear();
     }
 
     @Override
     public void setMouseClickedBehaviour(MouseEvent e) {
         if (currentMode == ActionMode.CREATE) {
-            points.add(e.getPoint());
+            addPoint(e.getPoint());
         } else if (currentMode == ActionMode.DELETE) {
-            points.removeIf(point -> point.distance(e.getPoint()) < 5);
-            selectedPoints.removeIf(point -> point.distance(e.getPoint()) < 5);
-        } else if (currentMode == ActionMode.SELECT) {
-            Point sPoint = points.stream()
-                    .filter(point -> point.distance(e.getPoint()) < 5)
-                    .findFirst()
-                    .orElse(null);
-            if (sPoint != null && selectedPoints.contains(sPoint)) {
-                selectedPoints.remove(sPoint);
-            } else if (sPoint != null){
-                selectedPoints.add(sPoint);
+            Rectangle2D area = new Rectangle2D.Double(e.getPoint().x, e.getPoint().y, 0, 0);
+            for (Point point : pointIndex.query(area)) {
+                if (point.distance(e.getPoint()) < 5) {
+                    // Point compares by value, so remove this exact instance
+                    points.removeIf(p -> p == point);
+                    selectedPoints.remove(point);
+                    pointIndex.remove(point);
+                }
             }
+        } else if (currentMode == ActionMode.SELECT) {
+            Point sPoint = pointIndex.findFirst(e.getPoint().x, e.getPoint().y, 0, point -> point.distance(e.getPoint()) < 5);
+            if (sPoint != null) selectedPoints.toggle(sPoint);
         }
     }
 
@@ -64,22 +94,29 @@ public class PointManager extends ShapeManager {
                 int dx = e.getPoint().x - selectedPoint.x;
                 int dy = e.getPoint().y - selectedPoint.y;
                 point.translate(dx, dy);
+                pointIndex.update(point);
             }
             selectedPoint = e.getPoint();
         }
     }
 
     @Override
-    public void paint(Graphics2D g2d) {
+    public void paint(Graphics2D g2d, Rectangle2D viewport) {
+        // The points are filled in a few batches, only the markers of the selected ones are drawn one by one
         g2d.setColor(Color.BLACK);
-        for (Point point : points) {
-            g2d.fillOval(point.x - 3, point.y - 3, 6, 6);
+        for (Path2D batch : pointBatches.query(viewport, LevelOfDetail.getScale(g2d))) {
+            g2d.fill(batch);
         }
-        for (Point point: selectedPoints) {
-            g2d.setColor(Color.BLUE);
-            g2d.drawOval(point.x - 5, point.y - 5, 10, 10);
+        g2d.setColor(Color.BLUE);
+        for (Point point : selectedPoints) {
+            if (getMarkerBounds(point).intersects(viewport)) g2d.drawOval(point.x - 5, point.y - 5, 10, 10);
         }
     }
+
+    private static Rectangle2D getMarkerBounds(Point point) {
+        // Covers the selection marker, which is also the pick tolerance
+        return new Rectangle2D.Double(point.x - 5, point.y - 5, 10, 10);
+    }
     /**
      * Converts all managed points into geometrical `Point` objects for export or analysis.
      *
@@ -99,14 +136,51 @@ public class PointManager extends ShapeManager {
     }
 
     @Override
-    public String toCSVString() {
-        StringBuilder stringBuilder = new StringBuilder();
+    public void writeScene(SceneWriter scene) throws IOException {
+        scene.startSection("Point", 2);
+        for (Point point : this.points) {
+            scene.addPoint(point.x, point.y);
+            scene.endShape();
+        }
+    }
+
+    @Override
+    public void writeCSV(Appendable out) throws IOException {
         for (Point point : this.points) {
-            stringBuilder.append("Point,");
-            stringBuilder.append("(").append(point.x).append(" ");
-            stringBuilder.append(point.y).append(")");
-            stringBuilder.append("\n");
+            appendCSVRow(out, point);
         }
-        return stringBuilder.toString();
+    }
+
+    @Override
+    public void writeChanges(SyncWriter out) throws IOException {
+        pointIndex.writeChanges(out, this::appendCSVRow);
+    }
+
+    @Override
+    public void markSynced() {
+        pointIndex.markSynced();
+    }
+
+    @Override
+    public void markUnsynced() {
+        pointIndex.markUnsynced();
+    }
+
+    @Override
+    public boolean adoptRowIds(long[] ids) {
+        return pointIndex.adoptIds(ids);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return pointIndex.isEmpty();
+    }
+
+    private void appendCSVRow(Appendable out, Point point) throws IOException {
+        out.append("Point,(");
+        appendNumber(out, point.x);
+        out.append(' ');
+        appendNumber(out, point.y);
+        out.append(")\n");
     }
 }
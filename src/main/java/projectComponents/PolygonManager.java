@@ -6,8 +6,14 @@ import org.locationtech.jts.geom.GeometryFactory;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.MouseEvent;
+import java.awt.geom.Path2D;
+import java.awt.geom.Rectangle2D;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 /**
  * The `PolygonManager` class manages the creation, selection, deletion, movement, and rendering of polygons.
  * <p>
@@ -17,14 +23,99 @@ import java.util.List;
 public class PolygonManager extends ShapeManager {
     protected final List<Polygon> polygons = new ArrayList<>();// List of all polygons managed by this instance
     protected List<Point> currentPoints = new ArrayList<>();// Points being used to create a new polygon
-    protected List<Polygon> selectedPolygons = new ArrayList<>();// List of currently selected polygons
+    protected final ShapeIndex<Polygon> polygonIndex = new ShapeIndex<>(Polygon::getBounds2D, this::fireShapesChanged, true);// Spatial index of all polygons, tracking their changes
+    protected final ShapeSelection<Polygon> selectedPolygons = new ShapeSelection<>(polygon -> fireShapesChanged(polygonIndex.getBounds(polygon)));// Currently selected polygons, compared by identity
+    protected final Map<Polygon, LevelOfDetail> levelsOfDetail = Collections.synchronizedMap(new IdentityHashMap<>());// Simplified versions of large polygons
+    protected final PathBatchCache<Polygon> polygonBatches = new PathBatchCache<>(polygonIndex, this::appendPolygons);// Unselected polygons merged for painting
+    /**
+     * Constructs an empty polygon manager.
+     */
+    public PolygonManager() {
+        addShapeChangeListener(polygonBatches::invalidate);
+    }
 
     @Override
     public void addShape(List<Double> xValues, List<Double> yValues) {
         int[] xPoints = xValues.stream().mapToInt(Double::intValue).toArray();
         int[] yPoints = yValues.stream().mapToInt(Double::intValue).toArray();
 
-        polygons.add(new Polygon(xPoints, yPoints, xPoints.length));
+        addPolygon(new Polygon(xPoints, yPoints, xPoints.length));
+    }
+
+    @Override
+    public void addShapes(double[] coordinates, int[] partOffsets, LevelOfDetail[] levelsOfDetail) {
+        for (int part = 0; part < partOffsets.length; part++) {
+            int firstPoint = partOffsets[part];
+            int nPoints = getPartEnd(coordinates, partOffsets, part) - firstPoint;
+            int[] xPoints = new int[nPoints];
+            int[] yPoints = new int[nPoints];
+            for (int i = 0; i < nPoints; i++) {
+                xPoints[i] = (int) coordinates[2 * (firstPoint + i)];
+                yPoints[i] = (int) coordinates[2 * (firstPoint + i) + 1];
+            }
+
+            Polygon polygon = new Polygon(xPoints, yPoints, nPoints);
+            if (levelsOfDetail == null) addPolygon(polygon);
+            else addPolygon(polygon, levelsOfDetail[part]);
+        }
+    }
+    /**
+     * Adds a polygon to the manager and its spatial index, and simplifies it for small scales.
+     *
+     * @param polygon the polygon to be added.
+     */
+    protected void addPolygon(Polygon polygon) {
+        addPolygon(polygon, LevelOfDetail.of(polygon.xpoints, polygon.ypoints, polygon.npoints, true));
+    }
+    /**
+     * Adds a polygon with its simplified versions to the manager and its spatial index.
+     *
+     * @param polygon       the polygon to be added.
+     * @param levelOfDetail the simplified versions of the polygon, or {@code null} if it is not simplified.
+     */
+    protected void addPolygon(Polygon polygon, LevelOfDetail levelOfDetail) {
+        polygons.add(polygon);
+        if (levelOfDetail != null) levelsOfDetail.put(polygon, levelOfDetail);
+        polygonIndex.insert(polygon);
+    }
+    /**
+     * Removes a polygon from the manager, its selection and its spatial index.
+     *
+     * @param polygon the polygon to be removed.
+     */
+    protected void removePolygon(Polygon polygon) {
+        polygons.remove(polygon);
+        selectedPolygons.remove(polygon);
+        polygonIndex.remove(polygon);
+        levelsOfDetail.remove(polygon);
+    }
+    /**
+     * Finds the first polygon containing the given point.
+     *
+     * @param point the point in model space.
+     * @return the polygon containing the point, or {@code null} if there is none.
+     */
+    protected Polygon findPolygonAt(Point point) {
+        return polygonIndex.findFirst(point.x, point.y, 0, polygon -> polygon.contains(point));
+    }
+
+    /**
+     * Picks the version of a polygon to draw at the given scale.
+     *
+     * @param polygon the polygon.
+     * @param scale   the scale factor.
+     * @return a simplified version if the details of the polygon would be smaller than a pixel, else the polygon itself.
+     */
+    protected Polygon getVersion(Polygon polygon, double scale) {
+        LevelOfDetail levelOfDetail = levelsOfDetail.get(polygon);
+        Polygon version = levelOfDetail == null ? null : levelOfDetail.forScale(scale);
+        return version == null ? polygon : version;
+    }
+
+    private void appendPolygons(Path2D batch, List<Polygon> polygons, double scale) {
+        for (Polygon polygon : polygons) {
+            if (!selectedPolygons.contains(polygon)) batch.append(getVersion(polygon, scale), false);
+        }
     }
 
     @Override
@@ -35,7 +126,7 @@ public class PolygonManager extends ShapeManager {
 
     @Override
     public void resetSelection() {
-        selectedPolygons = new ArrayList<>();
+        selectedPolygons.clear();
     }
 
     @Override
@@ -49,6 +140,8 @@ public class PolygonManager extends ShapeManager {
         this.polygons.clear();
         this.currentPoints.clear();
         this.selectedPolygons.clear();
+        this.polygonIndex.clear();
+        this.levelsOfDetail.clear();
     }
 
     @Override
@@ -61,20 +154,16 @@ public class PolygonManager extends ShapeManager {
                 int[] xPoints = currentPoints.stream().mapToInt(p -> p.x).toArray();
                 int[] yPoints = currentPoints.stream().mapToInt(p -> p.y).toArray();
                 if (xPoints.length > 2) {
-                    polygons.add(new Polygon(xPoints, yPoints, xPoints.length));
+                    addPolygon(new Polygon(xPoints, yPoints, xPoints.length));
                 }
                 currentPoints.clear();
             }
         } else if (currentMode == ActionMode.DELETE) {
-            Polygon selectedPolygon = polygons.stream().filter(p -> p.contains(e.getPoint())).findFirst().orElse(null);
-            if (selectedPolygon != null) {
-                polygons.remove(selectedPolygon);
-                selectedPolygons.remove(selectedPolygon);
-            }
+            Polygon selectedPolygon = findPolygonAt(e.getPoint());
+            if (selectedPolygon != null) removePolygon(selectedPolygon);
         } else if (currentMode == ActionMode.SELECT) {
-            Polygon selectedPolygon = polygons.stream().filter(p -> p.contains(e.getPoint())).findFirst().orElse(null);
-            if (selectedPolygon != null && selectedPolygons.contains(selectedPolygon)) selectedPolygons.remove(selectedPolygon);
-            else if (selectedPolygon != null) selectedPolygons.add(selectedPolygon);
+            Polygon selectedPolygon = findPolygonAt(e.getPoint());
+            if (selectedPolygon != null) selectedPolygons.toggle(selectedPolygon);
         }
     }
 
@@ -85,19 +174,31 @@ public class PolygonManager extends ShapeManager {
                 int dx = e.getPoint().x - selectedPoint.x;
                 int dy = e.getPoint().y - selectedPoint.y;
                 selectedPolygon.translate(dx, dy);
+                LevelOfDetail levelOfDetail = levelsOfDetail.get(selectedPolygon);
+                if (levelOfDetail != null) levelOfDetail.translate(dx, dy);
+                polygonIndex.update(selectedPolygon);
             }
             selectedPoint = e.getPoint();
         }
     }
 
     @Override
-    public void paint(Graphics2D g2d) {
-        for (Polygon polygon : polygons) {
-            g2d.setColor(Color.BLACK);
-            if (selectedPolygons.contains(polygon)) g2d.setColor(Color.BLUE);
-            g2d.drawPolygon(polygon);
+    public void paint(Graphics2D g2d, Rectangle2D viewport) {
+        double scale = LevelOfDetail.getScale(g2d);
+        // Unselected polygons are drawn in a few batches, only the selected ones are drawn one by one
+        g2d.setColor(Color.BLACK);
+        for (Path2D batch : polygonBatches.query(viewport, scale)) {
+            g2d.draw(batch);
+        }
+        g2d.setColor(Color.BLUE);
+        for (Polygon polygon : selectedPolygons) {
+            Rectangle2D bounds = polygonIndex.getBounds(polygon);
+            if (bounds != null && bounds.intersects(viewport)) g2d.drawPolygon(getVersion(polygon, scale));
         }
+    }
 
+    @Override
+    public void paintPreview(Graphics2D g2d) {
         if (!currentPoints.isEmpty() && currentMousePosition != null) {
             g2d.setColor(Color.RED);
             int[] xPoints = new int[currentPoints.size() + 1];
@@ -115,6 +216,13 @@ public class PolygonManager extends ShapeManager {
             g2d.drawPolyline(xPoints, yPoints, xPoints.length);
         }
     }
+    @Override
+    public Rectangle2D getPreviewBounds() {
+        if (currentPoints.isEmpty() || currentMousePosition == null) return null;
+        Rectangle2D bounds = new Rectangle2D.Double(currentMousePosition.x, currentMousePosition.y, 0, 0);
+        for (Point point : currentPoints) bounds.add(point);
+        return bounds;
+    }
     /**
      * Converts all managed polygons into geometrical `Polygon` objects for export or analysis.
      *
@@ -146,17 +254,86 @@ public class PolygonManager extends ShapeManager {
     }
 
     @Override
-    public String toCSVString() {
-        StringBuilder stringBuilder = new StringBuilder();
+    public void writeScene(SceneWriter scene) throws IOException {
+        scene.startSection("Polygon", 0);
         for (Polygon polygon : this.polygons) {
-            stringBuilder.append("Polygon,");
-            int[] xPoints = polygon.xpoints;
-            int[] yPoints = polygon.ypoints;
-            for (int i = 0; i < polygon.npoints; i++) {
-                stringBuilder.append("(").append(xPoints[i]).append(" ").append(yPoints[i]).append(") ");
-            }
-            stringBuilder.append("\n");
+            addPoints(scene, polygon);
+        }
+    }
+
+    /**
+     * Adds the points of a polygon to a scene file as one shape.
+     *
+     * @param scene   the scene file being written.
+     * @param polygon the polygon.
+     * @throws IOException if the file cannot be written.
+     */
+    protected static void addPoints(SceneWriter scene, Polygon polygon) throws IOException {
+        for (int i = 0; i < polygon.npoints; i++) {
+            scene.addPoint(polygon.xpoints[i], polygon.ypoints[i]);
+        }
+        scene.endShape();
+    }
+
+    @Override
+    public void writeCSV(Appendable out) throws IOException {
+        for (Polygon polygon : this.polygons) {
+            appendCSVRow(out, polygon);
+        }
+    }
+
+    @Override
+    public void writeChanges(SyncWriter out) throws IOException {
+        polygonIndex.writeChanges(out, this::appendCSVRow);
+    }
+
+    @Override
+    public void markSynced() {
+        polygonIndex.markSynced();
+    }
+
+    @Override
+    public void markUnsynced() {
+        polygonIndex.markUnsynced();
+    }
+
+    @Override
+    public boolean adoptRowIds(long[] ids) {
+        return polygonIndex.adoptIds(ids);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return polygonIndex.isEmpty();
+    }
+
+    /**
+     * Appends the CSV row of a polygon.
+     *
+     * @param out     the output the row is appended to.
+     * @param polygon the polygon.
+     * @throws IOException if the output cannot be written.
+     */
+    protected void appendCSVRow(Appendable out, Polygon polygon) throws IOException {
+        out.append("Polygon,");
+        appendPoints(out, polygon);
+    }
+
+    /**
+     * Appends the points of a polygon as `(x y)` pairs and ends the CSV row.
+     *
+     * @param out     the output the points are appended to.
+     * @param polygon the polygon.
+     * @throws IOException if the output cannot be written.
+     */
+    protected static void appendPoints(Appendable out, Polygon polygon) throws IOException {
+        for (int i = 0; i < polygon.npoints; i++) {
+            out.append('(');
+            appendNumber(out, polygon.xpoints[i]);
+            out.append(' ');
+            appendNumber(out, polygon.ypoints[i]);
+            out.append(") ");
         }
-        return stringBuilder.toString();
+        out.append('\n');
     }
 }
@@ -6,6 +6,9 @@ import org.locationtech.jts.geom.LinearRing;
 
 import java.awt.*;
 import java.awt.event.MouseEvent;
+import java.awt.geom.Path2D;
+import java.awt.geom.Rectangle2D;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 /**
@@ -19,8 +22,22 @@ import java.util.List;
 public class RectangleManager extends ShapeManager {
 	 /** List of all rectangles managed by this instance. */
     protected final List<Rectangle> rectangles = new ArrayList<>();
-    /** List of currently selected rectangles. */
-    protected List<Rectangle> selectedRectangles = new ArrayList<>();
+    /** Spatial index of all rectangles. */
+    protected final ShapeIndex<Rectangle> rectangleIndex = new ShapeIndex<>(Rectangle::getBounds2D, this::fireShapesChanged, true);
+    /** Currently selected rectangles, compared by identity. */
+    protected final ShapeSelection<Rectangle> selectedRectangles = new ShapeSelection<>(rectangle -> fireShapesChanged(rectangleIndex.getBounds(rectangle)));
+    /** Unselected rectangles merged for painting. */
+    protected final PathBatchCache<Rectangle> rectangleBatches = new PathBatchCache<>(rectangleIndex, (batch, rectangles, scale) -> {
+        for (Rectangle rectangle : rectangles) {
+            if (!selectedRectangles.contains(rectangle)) batch.append(rectangle, false);
+        }
+    });
+    /**
+     * Constructs an empty rectangle manager.
+     */
+    public RectangleManager() {
+        addShapeChangeListener(rectangleBatches::invalidate);
+    }
     /**
      * Adds a rectangle to the manager.
      *
@@ -29,11 +46,34 @@ public class RectangleManager extends ShapeManager {
 
     public void addShape(Rectangle rectangle) {
         this.rectangles.add(rectangle);
+        this.rectangleIndex.insert(rectangle);
+    }
+    /**
+     * Removes a rectangle from the manager, its selection and its spatial index.
+     * <p>
+     * Rectangles are compared by identity, since {@code Rectangle} considers two rectangles with the same
+     * bounds as equal.
+     *
+     * @param rectangle the rectangle to be removed.
+     */
+    protected void removeRectangle(Rectangle rectangle) {
+        rectangles.removeIf(r -> r == rectangle);
+        selectedRectangles.remove(rectangle);
+        rectangleIndex.remove(rectangle);
+    }
+    /**
+     * Finds the first rectangle containing the given point.
+     *
+     * @param point the point in model space.
+     * @return the rectangle containing the point, or {@code null} if there is none.
+     */
+    protected Rectangle findRectangleAt(Point point) {
+        return rectangleIndex.findFirst(point.x, point.y, 0, rectangle -> rectangle.contains(point));
     }
 
     @Override
     public void resetSelection() {
-        selectedRectangles = new ArrayList<>();
+        selectedRectangles.clear();
     }
 
     @Override
@@ -41,6 +81,7 @@ public class RectangleManager extends ShapeManager {
         super.newFrame();
         this.rectangles.clear();
         this.selectedRectangles.clear();
+        this.rectangleIndex.clear();
     }
 
     @Override
@@ -54,26 +95,15 @@ public class RectangleManager extends ShapeManager {
                 int y = Math.min(startPoint.y, e.getPoint().y);
                 int width = Math.abs(startPoint.x - e.getPoint().x);
                 int height = Math.abs(startPoint.y - e.getPoint().y);
-                rectangles.add(new Rectangle(x, y, width, height));
+                addShape(new Rectangle(x, y, width, height));
                 startPoint = null; // Reset startPoint for the next rectangle
             }
         } else if (currentMode == ActionMode.DELETE) {
-            Rectangle selectedRectangle = rectangles.stream()
-                    .filter(rectangle -> rectangle.contains(e.getPoint()))
-                    .findFirst()
-                    .orElse(null);
-            if (selectedRectangle != null) {
-                rectangles.remove(selectedRectangle);
-                selectedRectangles.remove(selectedRectangle);
-            }
+            Rectangle selectedRectangle = findRectangleAt(e.getPoint());
+            if (selectedRectangle != null) removeRectangle(selectedRectangle);
         } else if (currentMode == ActionMode.SELECT) {
-            Rectangle selectedRectangle = rectangles.stream()
-                    .filter(rectangle -> rectangle.contains(e.getPoint()))
-                    .findFirst()
-                    .orElse(null);
-            if (selectedRectangle != null && selectedRectangles.contains(selectedRectangle))
-                selectedRectangles.remove(selectedRectangle);
-            else if (selectedRectangle != null) selectedRectangles.add(selectedRectangle);
+            Rectangle selectedRectangle = findRectangleAt(e.getPoint());
+            if (selectedRectangle != null) selectedRectangles.toggle(selectedRectangle);
         }
     }
 
@@ -84,19 +114,27 @@ public class RectangleManager extends ShapeManager {
                 int dx = e.getPoint().x - selectedPoint.x;
                 int dy = e.getPoint().y - selectedPoint.y;
                 rectangle.setLocation(rectangle.x + dx, rectangle.y + dy);
+                rectangleIndex.update(rectangle);
             }
             selectedPoint = e.getPoint(); // Update the last mouse position
         }
     }
 
     @Override
-    public void paint(Graphics2D g2d) {
-        for (Rectangle rect : rectangles) {
-            g2d.setColor(Color.BLACK);
-            if (selectedRectangles.contains(rect)) g2d.setColor(Color.BLUE);
-            g2d.draw(rect); // Draw each rectangle
+    public void paint(Graphics2D g2d, Rectangle2D viewport) {
+        // Unselected rectangles are drawn in a few batches, only the selected ones are drawn one by one
+        g2d.setColor(Color.BLACK);
+        for (Path2D batch : rectangleBatches.query(viewport, LevelOfDetail.getScale(g2d))) {
+            g2d.draw(batch);
+        }
+        g2d.setColor(Color.BLUE);
+        for (Rectangle rect : selectedRectangles) {
+            if (rect.intersects(viewport)) g2d.draw(rect);
         }
+    }
 
+    @Override
+    public void paintPreview(Graphics2D g2d) {
         if (startPoint != null && currentMousePosition != null) {
             // Preview the rectangle being created
             g2d.setColor(Color.RED);
@@ -106,7 +144,6 @@ public class RectangleManager extends ShapeManager {
             int height = Math.abs(startPoint.y - currentMousePosition.y);
             g2d.drawRect(x, y, width, height);
         }
-
     }
     /**
      * Converts all managed rectangles into JTS {@code Polygon} objects for export or analysis.
@@ -137,16 +174,65 @@ public class RectangleManager extends ShapeManager {
     }
 
     @Override
-    public String toCSVString() {
-        StringBuilder stringBuilder = new StringBuilder();
+    public void writeScene(SceneWriter scene) throws IOException {
+        scene.startSection("Rectangle", 4);
+        for (Rectangle rectangle : this.rectangles) {
+            scene.addValue(rectangle.x);
+            scene.addValue(rectangle.y);
+            scene.addValue(rectangle.width);
+            scene.addValue(rectangle.height);
+            scene.endShape();
+        }
+    }
+
+    @Override
+    public void writeCSV(Appendable out) throws IOException {
         for (Rectangle rectangle : this.rectangles) {
-            stringBuilder.append("Rectangle,");
-            stringBuilder.append(rectangle.getX()).append(" ");
-            stringBuilder.append(rectangle.getY()).append(" ");
-            stringBuilder.append(rectangle.getWidth()).append(" ");
-            stringBuilder.append(rectangle.getHeight()).append(" ");
-            stringBuilder.append("\n");
+            appendCSVRow(out, rectangle);
         }
-        return stringBuilder.toString();
+    }
+
+    @Override
+    public void writeChanges(SyncWriter out) throws IOException {
+        rectangleIndex.writeChanges(out, this::appendCSVRow);
+    }
+
+    @Override
+    public void markSynced() {
+        rectangleIndex.markSynced();
+    }
+
+    @Override
+    public void markUnsynced() {
+        rectangleIndex.markUnsynced();
+    }
+
+    @Override
+    public boolean adoptRowIds(long[] ids) {
+        return rectangleIndex.adoptIds(ids);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return rectangleIndex.isEmpty();
+    }
+
+    /**
+     * Appends the CSV row of a rectangle.
+     *
+     * @param out       the output the row is appended to.
+     * @param rectangle the rectangle.
+     * @throws IOException if the output cannot be written.
+     */
+    protected void appendCSVRow(Appendable out, Rectangle rectangle) throws IOException {
+        out.append("Rectangle,");
+        appendNumber(out, rectangle.getX());
+        out.append(' ');
+        appendNumber(out, rectangle.getY());
+        out.append(' ');
+        appendNumber(out, rectangle.getWidth());
+        out.append(' ');
+        appendNumber(out, rectangle.getHeight());
+        out.append(" \n");
     }
 }
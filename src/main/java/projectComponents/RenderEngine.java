@@ -0,0 +1,164 @@
+package projectComponents;
+
+import java.awt.*;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.util.Collection;
+import java.util.function.Consumer;
+/**
+ * The `RenderEngine` class renders complete frames of the scene on a background thread.
+ * <p>
+ * The Swing EDT only requests frames for a `ViewState` snapshot and blits the last completed frame, so it never
+ * waits for the shapes to be drawn. The frame thread composes the frames from the tiles of a `TileCache` into
+ * an off-screen back buffer and swaps it with the front buffer once it is complete. Requests are coalesced, so
+ * while the user keeps zooming only the latest view is rendered, and a frame whose view has been replaced during
+ * rendering is dropped instead of being shown. Until the frame of a new view is ready, the previous frame is
+ * scaled and moved to the new view. As long as the view stays the same, only the area of the frame that shows
+ * changed shapes is handed to the EDT for repainting.
+ */
+public class RenderEngine {
+    private final TileCache tileCache;// Renders and caches the tiles the frames are composed of
+    private final Consumer<Rectangle> frameReadyCallback;// Called from the frame thread with the panel area to be repainted
+    private ViewState requestedView;// Latest view requested by the EDT
+    private boolean frameRequested;// Whether a frame has been requested since the frame thread took the last request
+    private Frame frontFrame;// Last completed frame, painted by the EDT
+    private BufferedImage backBuffer;// Image the next frame is rendered into
+    private Rectangle2D dirtyBounds;// Model-space area changed since the last frame was composed, null if none
+    /**
+     * Constructs the render engine and starts its frame thread.
+     *
+     * @param layers             the layers whose shapes are rendered, in painting order.
+     * @param memoryBudget       the maximum number of bytes used by the cached tiles.
+     * @param frameReadyCallback called from the frame thread with the panel area to be repainted whenever a new frame
+     *                           is ready.
+     */
+    public RenderEngine(Collection<ShapeLayer> layers, long memoryBudget, Consumer<Rectangle> frameReadyCallback) {
+        this.tileCache = new TileCache(layers, memoryBudget, this::refresh);
+        this.frameReadyCallback = frameReadyCallback;
+        Thread frameThread = new Thread(this::renderFrames, "frame-renderer");
+        frameThread.setDaemon(true);
+        frameThread.start();
+    }
+    /**
+     * Requests a frame for the given view; nothing happens if this view has been requested already.
+     *
+     * @param view the view to be rendered.
+     */
+    public synchronized void requestFrame(ViewState view) {
+        if (view.equals(requestedView)) return;
+        requestedView = view;
+        frameRequested = true;
+        notifyAll();
+    }
+    /**
+     * Marks the given area as changed, so the frames are rendered again once its tiles are up to date.
+     *
+     * @param bounds the changed area in model space.
+     */
+    public void invalidate(Rectangle2D bounds) {
+        tileCache.invalidate(bounds);
+    }
+    /**
+     * Paints the last completed frame onto the panel, transformed to the given view if it was rendered for another one.
+     *
+     * @param g2d  the graphics of the panel, without the view transform.
+     * @param view the current view of the panel.
+     */
+    public void paint(Graphics2D g2d, ViewState view) {
+        Frame frame;
+        synchronized (this) {
+            frame = frontFrame;
+        }
+        if (frame == null) return;
+
+        // Maps a pixel of the frame to the current view: back to model space, then into the new view
+        double ratio = view.getScale() / frame.view.getScale();
+        Graphics2D frameGraphics = (Graphics2D) g2d.create();
+        try {
+            frameGraphics.translate(view.getTranslateX() - frame.view.getTranslateX() * ratio,
+                    view.getTranslateY() - frame.view.getTranslateY() * ratio);
+            frameGraphics.scale(ratio, ratio);
+            synchronized (frame.image) {
+                frameGraphics.drawImage(frame.image, 0, 0, null);
+            }
+        } finally {
+            frameGraphics.dispose();
+        }
+    }
+
+    private synchronized void refresh(Rectangle2D bounds) {
+        // A tile is ready: compose the frame of the current view again
+        dirtyBounds = dirtyBounds == null ? bounds.getBounds2D() : dirtyBounds.createUnion(bounds);
+        if (requestedView == null) return;
+        frameRequested = true;
+        notifyAll();
+    }
+
+    private void renderFrames() {
+        while (true) {
+            ViewState view;
+            BufferedImage image;
+            Rectangle2D dirty;
+            Rectangle repaintArea;
+            synchronized (this) {
+                while (!frameRequested) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                frameRequested = false;
+                view = requestedView;
+                image = backBuffer;
+                dirty = dirtyBounds;
+                dirtyBounds = null;
+            }
+            if (view.getWidth() <= 0 || view.getHeight() <= 0) continue;
+            if (image == null || image.getWidth() != view.getWidth() || image.getHeight() != view.getHeight()) {
+                image = new BufferedImage(view.getWidth(), view.getHeight(), BufferedImage.TYPE_INT_RGB);
+            }
+
+            // The back buffer may still be blitted by the EDT as the previous front buffer, so wait for it to finish
+            synchronized (image) {
+                Graphics2D g2d = image.createGraphics();
+                try {
+                    g2d.setColor(Color.WHITE);
+                    g2d.fillRect(0, 0, view.getWidth(), view.getHeight());
+                    tileCache.paint(g2d, view);
+                } finally {
+                    g2d.dispose();
+                }
+            }
+
+            synchronized (this) {
+                // Drop the frame if the user has moved on to another view in the meantime
+                if (!view.equals(requestedView)) {
+                    backBuffer = image;
+                    if (dirty != null) dirtyBounds = dirtyBounds == null ? dirty : dirtyBounds.createUnion(dirty);
+                    continue;
+                }
+                // A frame of another view replaces the whole panel, otherwise only the changed area is repainted
+                if (frontFrame != null && view.equals(frontFrame.view) && dirty != null) {
+                    repaintArea = view.createTransform().createTransformedShape(dirty).getBounds();
+                    repaintArea.grow(1, 1);
+                } else {
+                    repaintArea = new Rectangle(0, 0, view.getWidth(), view.getHeight());
+                }
+                backBuffer = frontFrame == null ? null : frontFrame.image;
+                frontFrame = new Frame(image, view);
+            }
+            frameReadyCallback.accept(repaintArea);
+        }
+    }
+
+    private static class Frame {
+        final BufferedImage image;// Rendered frame
+        final ViewState view;// View the frame has been rendered for
+
+        Frame(BufferedImage image, ViewState view) {
+            this.image = image;
+            this.view = view;
+        }
+    }
+}
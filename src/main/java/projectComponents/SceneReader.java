@@ -0,0 +1,178 @@
+package projectComponents;
+
+import java.awt.*;
+import java.awt.geom.Arc2D;
+import java.awt.geom.Ellipse2D;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+/**
+ * The `SceneReader` class loads a scene file written by the `SceneWriter`.
+ * <p>
+ * The header and the section index are read when the reader is constructed, and every section is memory-mapped on
+ * its own and decoded straight from the mapping, so no part of the file is copied or parsed as text. Sections of
+ * unknown shape types, e.g. written by a later version, are skipped.
+ */
+public class SceneReader implements Closeable {
+    private final FileChannel channel;
+    private final List<Section> sections = new ArrayList<>();
+    /**
+     * Opens a scene file and reads its section index.
+     *
+     * @param file the scene file.
+     * @throws IOException if the file cannot be read or is not a scene file of a supported version.
+     */
+    public SceneReader(File file) throws IOException {
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (size < SceneWriter.HEADER_SIZE) throw new IOException(file.getName() + " is not a scene file");
+            ByteBuffer header = map(0, SceneWriter.HEADER_SIZE);
+            if (header.getInt() != SceneWriter.MAGIC) throw new IOException(file.getName() + " is not a scene file");
+            int version = header.getInt();
+            if (version != SceneWriter.VERSION) throw new IOException("Unsupported scene file version " + version);
+            int sectionCount = header.getInt();
+            long indexOffset = header.getLong();
+            if (indexOffset < SceneWriter.HEADER_SIZE || indexOffset > size) throw new IOException("The section index is missing");
+
+            ByteBuffer index = map(indexOffset, size - indexOffset);
+            for (int i = 0; i < sectionCount; i++) {
+                byte[] type = new byte[index.getShort()];
+                index.get(type);
+                Section section = new Section(new String(type, StandardCharsets.UTF_8), index.getInt(), index.getInt(),
+                        index.getLong(), index.getLong());
+                if (section.offset < SceneWriter.HEADER_SIZE || section.offset + section.length > indexOffset) {
+                    throw new IOException("The " + section.type + " section lies outside of the file");
+                }
+                sections.add(section);
+            }
+        } catch (BufferUnderflowException e) {
+            channel.close();
+            throw new IOException("The section index is truncated");
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+    /**
+     * Decodes all sections of known shape types.
+     *
+     * @return the shapes of the file, to be added to the managers with `addTo`; its row count is the number of shapes.
+     * @throws IOException if a section cannot be read or is corrupt.
+     */
+    public CSVChunk read() throws IOException {
+        CSVChunk chunk = new CSVChunk();
+        for (Section section : sections) {
+            try {
+                readSection(section, chunk);
+            } catch (BufferUnderflowException e) {
+                throw new IOException("The " + section.type + " section is truncated");
+            }
+        }
+        return chunk;
+    }
+
+    private void readSection(Section section, CSVChunk chunk) throws IOException {
+        ShapeBuffer pointShapes = switch (section.type) {
+            case "Point" -> chunk.points;
+            case "Line" -> chunk.lines;
+            case "Polygon" -> chunk.polygons;
+            case "Triangle" -> chunk.triangles;
+            default -> null;
+        };
+        int minValues = switch (section.type) {
+            case "Arc" -> 7;
+            case "Ellipse", "Rectangle" -> 4;
+            case "Circle", "Square" -> 3;
+            default -> pointShapes != null ? 0 : -1;
+        };
+        if (minValues < 0) return;// Unknown type
+        if (section.valuesPerShape != 0 && section.valuesPerShape < minValues) {
+            throw new IOException("A " + section.type + " needs " + minValues + " values, not " + section.valuesPerShape);
+        }
+
+        ByteBuffer bytes = map(section.offset, section.length);
+        long[] previousValues = new long[Math.max(2, section.valuesPerShape)];
+        double[] values = new double[Math.max(64, section.valuesPerShape)];
+        for (int shape = 0; shape < section.shapeCount; shape++) {
+            int valueCount = section.valuesPerShape;
+            if (valueCount == 0) {
+                long count = getVarint(bytes);
+                if (count < 0 || count > bytes.remaining()) throw new IOException("The " + section.type + " section is corrupt");
+                valueCount = (int) count;
+                if (valueCount > values.length) values = new double[Math.max(valueCount, 2 * values.length)];
+            }
+            for (int i = 0; i < valueCount; i++) {
+                int slot = section.valuesPerShape == 0 ? i % 2 : i;
+                long token = getVarint(bytes);
+                if ((token & 1) == 0) {
+                    long zigzag = token >>> 1;
+                    previousValues[slot] += (zigzag >>> 1) ^ -(zigzag & 1);
+                    values[i] = previousValues[slot];
+                } else {
+                    values[i] = bytes.getDouble();
+                }
+            }
+
+            if (pointShapes != null) {
+                pointShapes.startPart();
+                for (int i = 0; i + 1 < valueCount; i += 2) pointShapes.addPoint(values[i], values[i + 1]);
+                pointShapes.endPart();
+            } else if (valueCount < minValues) {
+                throw new IOException("A " + section.type + " needs " + minValues + " values, not " + valueCount);
+            } else {
+                switch (section.type) {
+                    case "Arc" -> chunk.arcs.add(new Arc2D.Double(values[0], values[1], values[2], values[3], values[4], values[5], (int) values[6]));
+                    case "Circle" -> chunk.circles.add(new Ellipse2D.Double(values[0], values[1], values[2], values[2]));
+                    case "Ellipse" -> chunk.ellipses.add(new Ellipse2D.Double(values[0], values[1], values[2], values[3]));
+                    case "Rectangle" -> chunk.rectangles.add(new Rectangle((int) values[0], (int) values[1], (int) values[2], (int) values[3]));
+                    default -> chunk.squares.add(new Rectangle((int) values[0], (int) values[1], (int) values[2], (int) values[2]));
+                }
+            }
+            chunk.rowCount++;
+        }
+    }
+
+    private static long getVarint(ByteBuffer bytes) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = bytes.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) return value;
+        }
+        throw new IOException("Invalid varint at byte " + bytes.position());
+    }
+
+    private ByteBuffer map(long offset, long length) throws IOException {
+        if (length > Integer.MAX_VALUE) throw new IOException("A section of " + length + " bytes is too large to map");
+        return channel.map(FileChannel.MapMode.READ_ONLY, offset, length).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private static class Section {
+        final String type;
+        final int valuesPerShape;
+        final int shapeCount;
+        final long offset, length;// Bytes of the section in the file
+
+        Section(String type, int valuesPerShape, int shapeCount, long offset, long length) {
+            this.type = type;
+            this.valuesPerShape = valuesPerShape;
+            this.shapeCount = shapeCount;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+}
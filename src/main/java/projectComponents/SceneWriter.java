@@ -0,0 +1,189 @@
+package projectComponents;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+/**
+ * The `SceneWriter` class saves the shapes of the managers in the native binary scene format, which is read back by
+ * the `SceneReader`.
+ * <p>
+ * A scene file starts with a header of {@value #HEADER_SIZE} bytes: the magic number, the format version, the number
+ * of sections and the position of the section index. Every manager writes its shapes through `writeScene` into a
+ * section of its own, and the index at the end of the file lists the type, the number of values per shape, the number
+ * of shapes and the position and length of every section, so a reader may map and decode each section on its own.
+ * All numbers are little-endian.
+ * <p>
+ * Every value of a shape is stored as a varint token. Whole numbers are stored as the zigzag-encoded difference to
+ * the same value of the previous shape of the section, or to the previous x or y coordinate in sections of shapes with
+ * any number of points, shifted left by one bit; drawn and imported shapes mostly lie close to each other, so most
+ * values take one or two bytes. Any other value is stored losslessly as the token 1 followed by its 8 bytes. Sections
+ * are encoded into a reused buffer of {@value #BUFFER_SIZE} bytes and written to the file whenever it is full.
+ */
+public class SceneWriter implements Closeable {
+    static final int MAGIC = 0x4E435347;// "GSCN" in little-endian order
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 20;// Magic number, version, section count and index position
+    static final long RAW_VALUE = 1;// Token of a value stored as its 8 bytes
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final int MAX_VALUE_SIZE = 10;// Largest token and value, in bytes
+
+    private final FileChannel channel;
+    private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);// Encoded bytes not written yet
+    private final List<Section> sections = new ArrayList<>();
+    private Section section = null;// The section shapes are added to, null before the first one
+    private long[] previousValues = new long[2];// Values the whole numbers of the next shape are encoded relative to
+    private double[] values = new double[64];// Values of the shape being added
+    private int valueCount = 0;
+    /**
+     * Creates or overwrites a scene file; the shapes are added section by section and the file is completed by
+     * `close()`.
+     *
+     * @param file the scene file.
+     * @throws IOException if the file cannot be written.
+     */
+    public SceneWriter(File file) throws IOException {
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        channel.position(HEADER_SIZE);
+    }
+    /**
+     * Starts a section; the shapes added until the next section is started belong to it. Sections without shapes
+     * are left out of the file.
+     *
+     * @param type           the shape type, e.g. `Polygon`, which selects the manager the shapes are read into.
+     * @param valuesPerShape the number of values of every shape, or 0 if the shapes have any number of points.
+     * @throws IOException if the previous section cannot be written.
+     */
+    public void startSection(String type, int valuesPerShape) throws IOException {
+        endSection();
+        section = new Section(type, valuesPerShape, channel.position());
+        previousValues = new long[Math.max(2, valuesPerShape)];
+    }
+    /**
+     * Appends a value to the shape being added.
+     *
+     * @param value the value, e.g. a coordinate or a size.
+     */
+    public void addValue(double value) {
+        if (valueCount == values.length) values = Arrays.copyOf(values, 2 * valueCount);
+        values[valueCount++] = value;
+    }
+    /**
+     * Appends a point to the shape being added.
+     *
+     * @param x the x coordinate of the point.
+     * @param y the y coordinate of the point.
+     */
+    public void addPoint(double x, double y) {
+        addValue(x);
+        addValue(y);
+    }
+    /**
+     * Completes the shape being added and encodes its values into the current section.
+     *
+     * @throws IOException if the encoded bytes cannot be written.
+     */
+    public void endShape() throws IOException {
+        if (section == null) throw new IllegalStateException("No section has been started");
+        if (section.valuesPerShape > 0 && valueCount != section.valuesPerShape) {
+            throw new IllegalStateException("A " + section.type + " has " + section.valuesPerShape + " values, not " + valueCount);
+        }
+
+        int size = MAX_VALUE_SIZE * (valueCount + 1);
+        if (buffer.remaining() < size) {
+            flush();
+            if (buffer.capacity() < size) buffer = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        if (section.valuesPerShape == 0) putVarint(valueCount);
+        for (int i = 0; i < valueCount; i++) {
+            // Shapes with any number of points are x/y pairs, each coordinate is relative to the previous one
+            putValue(section.valuesPerShape == 0 ? i % 2 : i, values[i]);
+        }
+        section.shapeCount++;
+        valueCount = 0;
+    }
+
+    private void putValue(int slot, double value) {
+        long whole = (long) value;
+        boolean exact = whole == value && Math.abs(whole) <= 1L << 53 && (whole != 0 || Double.doubleToRawLongBits(value) == 0);
+        if (exact) {
+            long delta = whole - previousValues[slot];
+            putVarint(((delta << 1) ^ (delta >> 63)) << 1);
+            previousValues[slot] = whole;
+        } else {
+            // Fractions, huge numbers, -0.0, infinities and NaN keep all their bits
+            putVarint(RAW_VALUE);
+            buffer.putDouble(value);
+        }
+    }
+
+    private void putVarint(long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) (value & 0x7F | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) channel.write(buffer);
+        buffer.clear();
+    }
+
+    private void endSection() throws IOException {
+        if (section == null) return;
+        flush();
+        section.length = channel.position() - section.offset;
+        if (section.shapeCount > 0) sections.add(section);
+        section = null;
+    }
+    /**
+     * Writes the section index and the header and closes the file.
+     *
+     * @throws IOException if the file cannot be written.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            endSection();
+            long indexOffset = channel.position();
+            for (Section section : sections) {
+                byte[] type = section.type.getBytes(StandardCharsets.UTF_8);
+                if (buffer.remaining() < 30 + type.length) flush();
+                buffer.putShort((short) type.length).put(type);
+                buffer.putInt(section.valuesPerShape).putInt(section.shapeCount);
+                buffer.putLong(section.offset).putLong(section.length);
+            }
+            flush();
+
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(sections.size()).putLong(indexOffset);
+            buffer.flip();
+            while (buffer.hasRemaining()) channel.write(buffer, HEADER_SIZE - buffer.remaining());
+        } finally {
+            channel.close();
+        }
+    }
+
+    private static class Section {
+        final String type;
+        final int valuesPerShape;
+        final long offset;// Position of the first byte in the file
+        long length;
+        int shapeCount = 0;
+
+        Section(String type, int valuesPerShape, long offset) {
+            this.type = type;
+            this.valuesPerShape = valuesPerShape;
+            this.offset = offset;
+        }
+    }
+}
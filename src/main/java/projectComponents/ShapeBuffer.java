@@ -0,0 +1,125 @@
+package projectComponents;
+
+import org.locationtech.jts.geom.Coordinate;
+
+import java.util.Arrays;
+/**
+ * The `ShapeBuffer` class collects the coordinates of many shapes in flat primitive arrays for a bulk add.
+ * <p>
+ * The coordinates of all shapes are stored one after the other as x/y pairs, and the index of the first point
+ * of every shape is kept as its part offset, like the parts of a shapefile record. Importers fill a buffer per
+ * shape type and hand it to the manager with a single `ShapeManager.addShapes` call, instead of boxing every
+ * coordinate into lists.
+ */
+public class ShapeBuffer {
+    private final boolean simplified;// Whether the simplified versions of every part are computed when it is added
+    private final boolean closed;// Whether the parts are polygon outlines
+    private double[] coordinates = new double[256];// x/y pairs of all parts
+    private int coordinateCount = 0;
+    private int[] partOffsets = new int[16];// Index of the first point of every part
+    private LevelOfDetail[] levelsOfDetail = new LevelOfDetail[16];// Simplified versions of every part, if computed
+    private int partCount = 0;
+    /**
+     * Constructs an empty buffer.
+     *
+     * @param simplified whether the simplified versions of every part are computed when it is added.
+     * @param closed     whether the parts are polygon outlines (true) or open lines or points (false).
+     */
+    public ShapeBuffer(boolean simplified, boolean closed) {
+        this.simplified = simplified;
+        this.closed = closed;
+    }
+    /**
+     * Appends a shape.
+     *
+     * @param points the points of the shape.
+     */
+    public void addPart(Coordinate[] points) {
+        startPart();
+        ensureCoordinateCapacity(coordinateCount + 2 * points.length);
+        for (Coordinate point : points) {
+            addPoint(point.x, point.y);
+        }
+        endPart();
+    }
+    /**
+     * Starts a new shape; its points are appended with `addPoint` and it is completed with `endPart`.
+     */
+    public void startPart() {
+        if (partCount == partOffsets.length) {
+            partOffsets = Arrays.copyOf(partOffsets, 2 * partCount);
+            levelsOfDetail = Arrays.copyOf(levelsOfDetail, 2 * partCount);
+        }
+        partOffsets[partCount] = coordinateCount / 2;
+    }
+    /**
+     * Appends a point to the shape started last.
+     *
+     * @param x the x coordinate of the point.
+     * @param y the y coordinate of the point.
+     */
+    public void addPoint(double x, double y) {
+        ensureCoordinateCapacity(coordinateCount + 2);
+        coordinates[coordinateCount++] = x;
+        coordinates[coordinateCount++] = y;
+    }
+    /**
+     * Completes the shape started last and computes its simplified versions if requested.
+     */
+    public void endPart() {
+        int firstPoint = partOffsets[partCount];
+        levelsOfDetail[partCount] = simplified ? LevelOfDetail.of(coordinates, firstPoint, coordinateCount / 2, closed) : null;
+        partCount++;
+    }
+    /**
+     * Appends all shapes of another buffer.
+     *
+     * @param other the buffer whose shapes are appended.
+     */
+    public void addAll(ShapeBuffer other) {
+        int firstPoint = coordinateCount / 2;
+        ensureCoordinateCapacity(coordinateCount + other.coordinateCount);
+        if (partCount + other.partCount > partOffsets.length) {
+            partOffsets = Arrays.copyOf(partOffsets, partCount + other.partCount);
+            levelsOfDetail = Arrays.copyOf(levelsOfDetail, partCount + other.partCount);
+        }
+
+        System.arraycopy(other.coordinates, 0, coordinates, coordinateCount, other.coordinateCount);
+        coordinateCount += other.coordinateCount;
+        for (int i = 0; i < other.partCount; i++) {
+            partOffsets[partCount] = firstPoint + other.partOffsets[i];
+            levelsOfDetail[partCount] = other.levelsOfDetail[i];
+            partCount++;
+        }
+    }
+    /**
+     * Checks whether no shape has been added.
+     *
+     * @return true if the buffer is empty, false otherwise.
+     */
+    public boolean isEmpty() {
+        return partCount == 0;
+    }
+    /**
+     * Removes all shapes, keeping the allocated arrays for reuse.
+     */
+    public void clear() {
+        Arrays.fill(levelsOfDetail, 0, partCount, null);
+        coordinateCount = 0;
+        partCount = 0;
+    }
+    /**
+     * Adds all shapes of the buffer to a manager with one bulk call.
+     *
+     * @param shapeManager the manager the shapes are added to.
+     */
+    public void addTo(ShapeManager shapeManager) {
+        if (isEmpty()) return;
+        shapeManager.addShapes(Arrays.copyOf(coordinates, coordinateCount), Arrays.copyOf(partOffsets, partCount),
+                simplified ? Arrays.copyOf(levelsOfDetail, partCount) : null);
+    }
+
+    private void ensureCoordinateCapacity(int capacity) {
+        if (capacity > coordinates.length) coordinates = Arrays.copyOf(coordinates, Math.max(2 * coordinates.length, capacity));
+    }
+}
@@ -0,0 +1,18 @@
+package projectComponents;
+
+import java.awt.geom.Rectangle2D;
+/**
+ * The `ShapeChangeListener` interface is notified whenever shapes of a `ShapeManager` are added, removed,
+ * moved, selected or deselected.
+ * <p>
+ * It allows views of the shapes, such as cached renderings, to refresh only the area that has actually changed.
+ */
+@FunctionalInterface
+public interface ShapeChangeListener {
+    /**
+     * Called after the shapes inside the given area have changed.
+     *
+     * @param bounds the changed area in model space.
+     */
+    void shapesChanged(Rectangle2D bounds);
+}
@@ -0,0 +1,367 @@
+package projectComponents;
+
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.index.quadtree.Quadtree;
+
+import java.awt.geom.Rectangle2D;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Predicate;
+/**
+ * The `ShapeIndex` class keeps the bounds of the shapes owned by a `ShapeManager` in a JTS `Quadtree`.
+ * <p>
+ * The index is maintained incrementally: managers insert a shape when it is added, update it after it has been
+ * moved and remove it when it is deleted. A pick then only runs the exact hit test on the few shapes whose bounds
+ * lie near the clicked point instead of scanning the whole shape list.
+ * <p>
+ * Shapes are tracked by identity, so two shapes with equal values (e.g. two identical `Rectangle` objects)
+ * are still kept apart. The index is thread-safe, so background renderers can query it while the shapes are
+ * edited, and every change is reported with its bounds to the given `ShapeChangeListener`.
+ * <p>
+ * An index tracking changes also gives every shape an id, unique among all indexes, and remembers the shapes
+ * inserted, updated and removed since the last synchronization, e.g. with a database table. `writeChanges` then
+ * writes only those shapes, so synchronizing again costs time proportional to the number of edits, not of shapes.
+ * Shapes may be edited while the changes are written; `markSynced` only forgets the changes that have been written,
+ * so edits made meanwhile are written by the next synchronization. Shapes imported from a table keep the ids of their
+ * rows with `adoptIds`; ids restart at 1 in every session, so `reserveIds` makes later ids skip those of the table.
+ *
+ * @param <T> the type of shape stored in the index.
+ */
+public class ShapeIndex<T> {
+    private final Function<T, Rectangle2D> boundsFunction;// Computes the bounds of a shape in model space
+    private final ShapeChangeListener changeListener;// Notified of the bounds of every change
+    private final Map<T, Entry<T>> entries = new IdentityHashMap<>();// Index entry of every stored shape
+    private Quadtree quadtree = new Quadtree();
+    private long sequence = 0;// Insertion counter, used to keep the original pick order
+    private static final AtomicLong nextId = new AtomicLong(1);// Shared by all indexes, whose shapes are stored in one table
+    private final boolean trackChanges;
+    private final List<Entry<T>> changedEntries = new ArrayList<>();// Entries inserted or updated since the last synchronization
+    private final List<Long> removedIds = new ArrayList<>();// Ids of the synchronized shapes removed since then
+    private List<Entry<T>> writtenEntries = List.of();// Changed entries written by the last `writeChanges`
+    private int[] writtenStates = new int[0];// Sync state of every written entry when it was written
+    private int[] writtenChangeCounts = new int[0];// Change count of every written entry when it was written
+    private int writtenRemovedIds = 0;// Number of leading removed ids written by the last `writeChanges`
+    /**
+     * Constructs an empty index without change tracking.
+     *
+     * @param boundsFunction the function computing the bounds of a shape; it is called again on every update.
+     * @param changeListener the listener notified of the bounds of every change of the index.
+     */
+    public ShapeIndex(Function<T, Rectangle2D> boundsFunction, ShapeChangeListener changeListener) {
+        this(boundsFunction, changeListener, false);
+    }
+    /**
+     * Constructs an empty index.
+     *
+     * @param boundsFunction the function computing the bounds of a shape; it is called again on every update.
+     * @param changeListener the listener notified of the bounds of every change of the index.
+     * @param trackChanges   whether the shapes changed since the last synchronization are remembered for `writeChanges`.
+     */
+    public ShapeIndex(Function<T, Rectangle2D> boundsFunction, ShapeChangeListener changeListener, boolean trackChanges) {
+        this.boundsFunction = boundsFunction;
+        this.changeListener = changeListener;
+        this.trackChanges = trackChanges;
+    }
+    /**
+     * Adds a shape to the index.
+     *
+     * @param shape the shape to be added.
+     */
+    public void insert(T shape) {
+        Entry<T> entry;
+        synchronized (this) {
+            entry = new Entry<>(shape, toEnvelope(boundsFunction.apply(shape)), sequence++, trackChanges ? nextId.getAndIncrement() : 0);
+            entries.put(shape, entry);
+            quadtree.insert(entry.envelope, entry);
+            if (trackChanges) markChanged(entry, Entry.INSERTED);
+        }
+        changeListener.shapesChanged(toRectangle(entry.envelope));
+    }
+    /**
+     * Removes a shape from the index.
+     *
+     * @param shape the shape to be removed.
+     */
+    public void remove(T shape) {
+        Entry<T> entry;
+        synchronized (this) {
+            entry = entries.remove(shape);
+            if (entry == null) return;
+            quadtree.remove(entry.envelope, entry);
+            if (trackChanges) {
+                // A shape inserted since the last synchronization is simply not written
+                if (entry.syncState != Entry.INSERTED) removedIds.add(entry.id);
+                entry.syncState = Entry.REMOVED;
+                entry.changeCount++;
+            }
+        }
+        changeListener.shapesChanged(toRectangle(entry.envelope));
+    }
+    /**
+     * Recomputes the bounds of a shape after it has been changed (e.g. moved).
+     *
+     * @param shape the shape whose bounds have changed.
+     */
+    public void update(T shape) {
+        Envelope oldEnvelope;
+        Envelope newEnvelope;
+        synchronized (this) {
+            Entry<T> entry = entries.get(shape);
+            if (entry == null) return;
+            oldEnvelope = entry.envelope;
+            newEnvelope = toEnvelope(boundsFunction.apply(shape));
+            quadtree.remove(oldEnvelope, entry);
+            entry.envelope = newEnvelope;
+            quadtree.insert(newEnvelope, entry);
+            if (trackChanges) {
+                entry.changeCount++;
+                if (entry.syncState == Entry.SYNCED) markChanged(entry, Entry.UPDATED);
+            }
+        }
+        changeListener.shapesChanged(toRectangle(oldEnvelope));
+        changeListener.shapesChanged(toRectangle(newEnvelope));
+    }
+    /**
+     * Removes all shapes from the index.
+     */
+    public void clear() {
+        Envelope cleared = new Envelope();
+        synchronized (this) {
+            for (Entry<T> entry : entries.values()) {
+                cleared.expandToInclude(entry.envelope);
+                if (!trackChanges) continue;
+                if (entry.syncState != Entry.INSERTED) removedIds.add(entry.id);
+                entry.syncState = Entry.REMOVED;
+                entry.changeCount++;
+            }
+            entries.clear();
+            changedEntries.clear();
+            quadtree = new Quadtree();
+            sequence = 0;
+        }
+        if (!cleared.isNull()) changeListener.shapesChanged(toRectangle(cleared));
+    }
+
+    private void markChanged(Entry<T> entry, int syncState) {
+        entry.syncState = syncState;
+        if (entry.queued) return;
+        entry.queued = true;
+        changedEntries.add(entry);
+    }
+    /**
+     * Writes the shapes inserted, updated and removed since the last synchronization, the removed ones first.
+     * Nothing is written by an index without change tracking. Only one synchronization may run at a time, but the
+     * shapes may be edited meanwhile.
+     *
+     * @param out       the writer receiving the changes.
+     * @param rowWriter the function writing the CSV row of a shape, e.g. `Polygon,(10 20) (30 40) (10 40)`.
+     * @throws IOException if the changes cannot be written.
+     */
+    public void writeChanges(SyncWriter out, RowWriter<T> rowWriter) throws IOException {
+        List<Long> removed;
+        List<Entry<T>> changed;
+        int[] states;
+        synchronized (this) {
+            removed = new ArrayList<>(removedIds);
+            changed = new ArrayList<>(changedEntries);
+            states = new int[changed.size()];
+            int[] changeCounts = new int[changed.size()];
+            for (int i = 0; i < states.length; i++) {
+                states[i] = changed.get(i).syncState;
+                changeCounts[i] = changed.get(i).changeCount;
+            }
+            writtenEntries = changed;
+            writtenStates = states;
+            writtenChangeCounts = changeCounts;
+            writtenRemovedIds = removed.size();
+        }
+        for (long id : removed) out.delete(id);
+        StringBuilder row = new StringBuilder();
+        for (int i = 0; i < states.length; i++) {
+            if (states[i] == Entry.REMOVED) continue;
+            Entry<T> entry = changed.get(i);
+            row.setLength(0);
+            rowWriter.append(row, entry.shape);
+            if (states[i] == Entry.INSERTED) out.insert(entry.id, row);
+            else out.update(entry.id, row);
+        }
+    }
+    /**
+     * Forgets the changes written by the last `writeChanges` after they have been stored. Shapes edited since they
+     * were written stay changed, so they are written again by the next synchronization.
+     */
+    public synchronized void markSynced() {
+        removedIds.subList(0, Math.min(writtenRemovedIds, removedIds.size())).clear();
+        for (int i = 0; i < writtenStates.length; i++) {
+            Entry<T> entry = writtenEntries.get(i);
+            if (entry.changeCount == writtenChangeCounts[i]) {
+                if (entry.syncState != Entry.REMOVED) entry.syncState = Entry.SYNCED;
+                entry.queued = false;
+            } else if (writtenStates[i] != Entry.REMOVED) {
+                // The row has been stored meanwhile, so it has to be deleted or updated now
+                if (entry.syncState == Entry.REMOVED) {
+                    if (writtenStates[i] == Entry.INSERTED) removedIds.add(entry.id);
+                    entry.queued = false;
+                } else {
+                    entry.syncState = Entry.UPDATED;
+                }
+            }
+        }
+        changedEntries.removeIf(entry -> !entry.queued);
+        writtenEntries = List.of();
+        writtenStates = new int[0];
+        writtenChangeCounts = new int[0];
+        writtenRemovedIds = 0;
+    }
+    /**
+     * Gives the shapes the ids of the rows they have been read from and marks them as synchronized, e.g. after a
+     * table has been imported into an empty scene. The ids are assigned in the order the shapes were added; nothing
+     * is changed by an index without change tracking or if the number of ids differs from the number of shapes.
+     *
+     * @param ids the ids of the rows, in the order of the shapes.
+     * @return whether the ids have been assigned.
+     */
+    public synchronized boolean adoptIds(long[] ids) {
+        if (!trackChanges || ids.length != entries.size()) return false;
+        List<Entry<T>> sorted = new ArrayList<>(entries.values());
+        sorted.sort(Comparator.comparingLong(entry -> entry.sequence));
+        for (int i = 0; i < ids.length; i++) {
+            Entry<T> entry = sorted.get(i);
+            entry.id = ids[i];
+            entry.syncState = Entry.SYNCED;
+            entry.queued = false;
+        }
+        changedEntries.clear();
+        removedIds.clear();
+        return true;
+    }
+    /**
+     * Makes the ids given to the shapes added later, by all indexes, larger than the given id, e.g. than the ids of
+     * the rows of a table the shapes are synchronized with.
+     *
+     * @param maxId the largest id in use.
+     */
+    public static void reserveIds(long maxId) {
+        nextId.accumulateAndGet(maxId + 1, Math::max);
+    }
+    /**
+     * Tells whether the index holds no shapes.
+     *
+     * @return whether the index is empty.
+     */
+    public synchronized boolean isEmpty() {
+        return entries.isEmpty();
+    }
+    /**
+     * Marks all shapes as inserted since the last synchronization, e.g. before they are written to an empty table.
+     */
+    public synchronized void markUnsynced() {
+        if (!trackChanges) return;
+        removedIds.clear();
+        for (Entry<T> entry : entries.values()) markChanged(entry, Entry.INSERTED);
+    }
+    /**
+     * Retrieves the bounds a shape has been indexed with.
+     *
+     * @param shape the shape.
+     * @return the bounds of the shape in model space, or {@code null} if the shape is not in the index.
+     */
+    public synchronized Rectangle2D getBounds(T shape) {
+        Entry<T> entry = entries.get(shape);
+        return entry == null ? null : toRectangle(entry.envelope);
+    }
+    /**
+     * Retrieves all shapes whose bounds intersect the given area, in the order they were added.
+     *
+     * @param area the area in model space.
+     * @return a list of the shapes intersecting the area.
+     */
+    public List<T> query(Rectangle2D area) {
+        List<Entry<T>> candidates = candidates(toEnvelope(area));
+        candidates.sort(Comparator.comparingLong(entry -> entry.sequence));
+
+        List<T> shapes = new ArrayList<>(candidates.size());
+        for (Entry<T> entry : candidates) shapes.add(entry.shape);
+        return shapes;
+    }
+    /**
+     * Finds the first added shape near the given point that passes the exact hit test.
+     *
+     * @param x         the x coordinate of the point in model space.
+     * @param y         the y coordinate of the point in model space.
+     * @param tolerance the distance around the point in which shapes are considered.
+     * @param hitTest   the exact test run on each candidate.
+     * @return the matching shape, or {@code null} if no shape matches.
+     */
+    public T findFirst(double x, double y, double tolerance, Predicate<T> hitTest) {
+        Entry<T> found = null;
+        for (Entry<T> entry : candidates(new Envelope(x - tolerance, x + tolerance, y - tolerance, y + tolerance))) {
+            if ((found == null || entry.sequence < found.sequence) && hitTest.test(entry.shape)) found = entry;
+        }
+        return found == null ? null : found.shape;
+    }
+
+    @SuppressWarnings("unchecked")
+    private synchronized List<Entry<T>> candidates(Envelope envelope) {
+        List<Entry<T>> candidates = new ArrayList<>();
+        // The quadtree only returns the entries of the nodes overlapping the envelope, so filter them exactly
+        for (Object item : quadtree.query(envelope)) {
+            Entry<T> entry = (Entry<T>) item;
+            if (entry.envelope.intersects(envelope)) candidates.add(entry);
+        }
+        return candidates;
+    }
+
+    private static Envelope toEnvelope(Rectangle2D bounds) {
+        return new Envelope(bounds.getMinX(), bounds.getMaxX(), bounds.getMinY(), bounds.getMaxY());
+    }
+
+    private static Rectangle2D toRectangle(Envelope envelope) {
+        return new Rectangle2D.Double(envelope.getMinX(), envelope.getMinY(), envelope.getWidth(), envelope.getHeight());
+    }
+
+    /**
+     * The `RowWriter` interface writes the CSV row of a shape for `writeChanges`.
+     *
+     * @param <T> the type of shape.
+     */
+    @FunctionalInterface
+    public interface RowWriter<T> {
+        /**
+         * Appends the CSV row of a shape, including its line break.
+         *
+         * @param out   the output the row is appended to.
+         * @param shape the shape.
+         * @throws IOException if the output cannot be written.
+         */
+        void append(Appendable out, T shape) throws IOException;
+    }
+
+    private static class Entry<T> {
+        static final int SYNCED = 0;
+        static final int INSERTED = 1;// Not stored yet
+        static final int UPDATED = 2;// Stored, but changed since
+        static final int REMOVED = 3;
+
+        final T shape;
+        final long sequence;
+        long id;// Stable id of the shape, also used as the id of its stored row; 0 without change tracking
+        Envelope envelope;
+        int syncState = SYNCED;// Changes since the last synchronization, only tracked if enabled
+        boolean queued = false;// Whether the entry is in the list of changed entries
+        int changeCount = 0;// Incremented by every update and removal, to detect edits made while synchronizing
+
+        Entry(T shape, Envelope envelope, long sequence, long id) {
+            this.shape = shape;
+            this.envelope = envelope;
+            this.sequence = sequence;
+            this.id = id;
+        }
+    }
+}
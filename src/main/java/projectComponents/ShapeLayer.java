@@ -0,0 +1,93 @@
+package projectComponents;
+
+import java.awt.*;
+import java.awt.geom.Rectangle2D;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+/**
+ * The `ShapeLayer` class is the base of everything painted by the `RenderEngine`: the editable shapes of a
+ * `ShapeManager` as well as read-only layers such as the `LinkedShapefileLayer` and the `DatabaseLayer`.
+ * <p>
+ * It reports the areas whose shapes change to its listeners, and it keeps the render threads from painting the
+ * shapes while an update changes them.
+ */
+public abstract class ShapeLayer {
+    private final List<ShapeChangeListener> changeListeners = new CopyOnWriteArrayList<>();
+    private int updateDepth = 0;// Number of open bulk updates, changes are collected while it is positive
+    private Rectangle2D pendingChanges = null;// Union of the changes collected during a bulk update
+    private final ReadWriteLock shapeLock = new ReentrantReadWriteLock();// Written during updates, read by render threads
+
+    /**
+     * registers a listener that is notified whenever shapes are added, removed, moved or (de)selected
+     * 
+     * @param listener the listener
+     */
+    public void addShapeChangeListener(ShapeChangeListener listener) {
+        changeListeners.add(listener);
+    }
+
+    /**
+     * starts an update, e.g. a chunk of imported shapes or a mouse drag; until the matching `endUpdate` the listeners
+     * are not notified of every single change, but once of the area covering all of them, and render threads wait
+     * before painting the shapes, so the shapes and their lists are only changed inside an update
+     */
+    public void beginUpdate() {
+        shapeLock.writeLock().lock();
+        updateDepth++;
+    }
+
+    /**
+     * ends an update and notifies the registered listeners of the area covering all changes made during it
+     */
+    public void endUpdate() {
+        updateDepth--;
+        shapeLock.writeLock().unlock();
+        if (updateDepth > 0 || pendingChanges == null) return;
+        Rectangle2D bounds = pendingChanges;
+        pendingChanges = null;
+        fireShapesChanged(bounds);
+    }
+
+    /**
+     * notifies the registered listeners that shapes inside the given area have changed
+     * 
+     * @param bounds the changed area in model space, ignored if null
+     */
+    protected void fireShapesChanged(Rectangle2D bounds) {
+        if (bounds == null) return;
+        if (updateDepth > 0) {
+            pendingChanges = pendingChanges == null ? bounds.getBounds2D() : pendingChanges.createUnion(bounds);
+            return;
+        }
+        for (ShapeChangeListener listener : changeListeners) {
+            listener.shapesChanged(bounds);
+        }
+    }
+
+    /**
+     * paints the shapes intersecting the visible area; background render threads call it through
+     * `paintConcurrently`, which keeps updates from changing the shapes meanwhile
+     * 
+     * @param g2d the graphical drawer
+     * @param viewport the visible area in model space
+     */
+    public abstract void paint(Graphics2D g2d, Rectangle2D viewport);
+
+    /**
+     * paints the shapes like `paint` from a thread other than the one updating them, waiting for a running update
+     * to end first
+     * 
+     * @param g2d the graphical drawer
+     * @param viewport the visible area in model space
+     */
+    public final void paintConcurrently(Graphics2D g2d, Rectangle2D viewport) {
+        shapeLock.readLock().lock();
+        try {
+            paint(g2d, viewport);
+        } finally {
+            shapeLock.readLock().unlock();
+        }
+    }
+}
@@ -2,9 +2,13 @@ package projectComponents;
 
 import java.awt.*;
 import java.awt.event.MouseEvent;
+import java.awt.geom.Rectangle2D;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.List;
 
-public abstract class ShapeManager {
+public abstract class ShapeManager extends ShapeLayer {
     protected Point currentMousePosition = null;
     protected ActionMode currentMode = ActionMode.CREATE;
     protected Point startPoint = null;
@@ -96,16 +100,174 @@ public abstract class ShapeManager {
     public void addShape(List<Double> xValues, List<Double> yValues) {}
 
     /**
-     * paints a shape
+     * adds many shapes at once from flat primitive arrays, e.g. a batch of imported features
+     * 
+     * @param coordinates the x/y pairs of the points of all shapes, one shape after the other
+     * @param partOffsets the index of the first point of every shape; a shape ends where the next one starts
+     */
+    public void addShapes(double[] coordinates, int[] partOffsets) {
+        addShapes(coordinates, partOffsets, null);
+    }
+
+    /**
+     * adds many shapes at once from flat primitive arrays together with their simplified versions, which have been
+     * computed beforehand, e.g. on an import thread; managers without levels of detail ignore them
+     * 
+     * @param coordinates the x/y pairs of the points of all shapes, one shape after the other
+     * @param partOffsets the index of the first point of every shape; a shape ends where the next one starts
+     * @param levelsOfDetail the simplified versions of every shape, or null if they are computed by the manager
+     */
+    public void addShapes(double[] coordinates, int[] partOffsets, LevelOfDetail[] levelsOfDetail) {
+        for (int part = 0; part < partOffsets.length; part++) {
+            List<Double> xValues = new ArrayList<>();
+            List<Double> yValues = new ArrayList<>();
+            for (int i = partOffsets[part]; i < getPartEnd(coordinates, partOffsets, part); i++) {
+                xValues.add(coordinates[2 * i]);
+                yValues.add(coordinates[2 * i + 1]);
+            }
+            addShape(xValues, yValues);
+        }
+    }
+
+    /**
+     * retrieves the index after the last point of a shape passed to `addShapes`
+     * 
+     * @param coordinates the x/y pairs of the points of all shapes
+     * @param partOffsets the index of the first point of every shape
+     * @param part the index of the shape
+     * @return the index after the last point of the shape
+     */
+    protected static int getPartEnd(double[] coordinates, int[] partOffsets, int part) {
+        return part + 1 < partOffsets.length ? partOffsets[part + 1] : coordinates.length / 2;
+    }
+
+    /**
+     * paints the preview of the shape being created, which follows the mouse
      * 
      * @param g2d the graphical drawer
      */
-    public abstract void paint(Graphics2D g2d);
+    public void paintPreview(Graphics2D g2d) {}
+
+    /**
+     * retrieves the area covered by the preview of the shape being created, which spans from the start point to the mouse
+     * 
+     * @return the bounds of the preview in model space, or null if there is no preview
+     */
+    public Rectangle2D getPreviewBounds() {
+        if (startPoint == null || currentMousePosition == null) return null;
+        Rectangle2D bounds = new Rectangle2D.Double(startPoint.x, startPoint.y, 0, 0);
+        bounds.add(currentMousePosition);
+        return bounds;
+    }
+
+    /**
+     * writes one CSV row per shape, e.g. `Point,(10 20)`, straight to the given output; the rows are produced one at
+     * a time, so an export streamed into a file needs no memory for the rows written before
+     *
+     * @param out the output the rows are appended to
+     * @throws IOException if the output cannot be written
+     */
+    public abstract void writeCSV(Appendable out) throws IOException;
+
+    /**
+     * writes the shapes as a section of a native scene file, which keeps every value without loss; the section is
+     * read back into the manager of the same type by the `SceneReader`
+     *
+     * @param scene the scene file being written
+     * @throws IOException if the file cannot be written
+     */
+    public abstract void writeScene(SceneWriter scene) throws IOException;
+
+    /**
+     * writes the shapes added, moved or removed since the last `markSynced`, each with its stable id, e.g. to apply
+     * only the edits to a database table; managers whose shapes are not stored write nothing
+     *
+     * @param out the writer receiving the changes
+     * @throws IOException if the changes cannot be written
+     */
+    public void writeChanges(SyncWriter out) throws IOException {}
+
+    /**
+     * forgets the changes written by `writeChanges` once they have been stored
+     */
+    public void markSynced() {}
+
+    /**
+     * marks all shapes as added since the last synchronization, so `writeChanges` writes every shape, e.g. into a
+     * table that has been cleared
+     */
+    public void markUnsynced() {}
+
+    /**
+     * gives the shapes the ids of the rows they have been read from and marks them as synchronized, e.g. after a
+     * table has been imported into an empty manager; managers whose shapes are not stored adopt no ids
+     *
+     * @param ids the ids of the rows, in the order the shapes were added
+     * @return whether the ids have been assigned, false if their number differs from the number of shapes
+     */
+    public boolean adoptRowIds(long[] ids) {
+        return false;
+    }
+
+    /**
+     * tells whether the manager holds no shapes
+     *
+     * @return whether the manager is empty
+     */
+    public abstract boolean isEmpty();
 
     /**
      * converts shape(s) to .csv
      *  
      * @return the string of shape description
      */
-    public abstract String toCSVString();
+    public String toCSVString() {
+        StringBuilder stringBuilder = new StringBuilder();
+        try {
+            writeCSV(stringBuilder);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);// A StringBuilder never throws
+        }
+        return stringBuilder.toString();
+    }
+
+    /**
+     * appends the decimal digits of a whole number without creating a string
+     *
+     * @param out the output the number is appended to
+     * @param value the number
+     * @throws IOException if the output cannot be written
+     */
+    protected static void appendNumber(Appendable out, long value) throws IOException {
+        if (value == Long.MIN_VALUE) {
+            out.append(Long.toString(value));
+            return;
+        }
+        if (value < 0) {
+            out.append('-');
+            value = -value;
+        }
+        long divisor = 1;
+        while (value / divisor >= 10) divisor *= 10;
+        for (; divisor > 0; divisor /= 10) {
+            out.append((char) ('0' + value / divisor % 10));
+        }
+    }
+
+    /**
+     * appends a floating-point number the way `Double.toString` writes it in the range used by shapes; whole
+     * numbers, the common case, are written without creating a string
+     *
+     * @param out the output the number is appended to
+     * @param value the number
+     * @throws IOException if the output cannot be written
+     */
+    protected static void appendNumber(Appendable out, double value) throws IOException {
+        if (value == (long) value && Math.abs(value) < 1e7) {
+            appendNumber(out, (long) value);
+            out.append(".0");
+        } else {
+            out.append(Double.toString(value));
+        }
+    }
 }
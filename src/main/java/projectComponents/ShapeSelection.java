@@ -0,0 +1,112 @@
+package projectComponents;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+/**
+ * The `ShapeSelection` class holds the currently selected shapes of a `ShapeManager`.
+ * <p>
+ * Shapes are kept in an identity hash set, so membership checks during painting and the toggle of the
+ * SELECT mode take constant time. Since shapes are compared by identity, two shapes with equal values
+ * (e.g. two identical `Rectangle` objects) are selected independently of each other.
+ * <p>
+ * The selection is thread-safe, so background renderers can check it while the user selects shapes.
+ *
+ * @param <T> the type of the selected shapes.
+ */
+public class ShapeSelection<T> implements Iterable<T> {
+    private final Set<T> shapes = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final Consumer<T> changeListener;// Notified of every shape that is selected or deselected
+    /**
+     * Constructs an empty selection.
+     *
+     * @param changeListener the listener notified of every shape that is selected or deselected.
+     */
+    public ShapeSelection(Consumer<T> changeListener) {
+        this.changeListener = changeListener;
+    }
+    /**
+     * Adds a shape to the selection.
+     *
+     * @param shape the shape to be selected.
+     */
+    public void add(T shape) {
+        boolean changed;
+        synchronized (this) {
+            changed = shapes.add(shape);
+        }
+        if (changed) changeListener.accept(shape);
+    }
+    /**
+     * Removes a shape from the selection.
+     *
+     * @param shape the shape to be deselected.
+     */
+    public void remove(T shape) {
+        boolean changed;
+        synchronized (this) {
+            changed = shapes.remove(shape);
+        }
+        if (changed) changeListener.accept(shape);
+    }
+    /**
+     * Selects the shape if it is not selected yet, otherwise deselects it.
+     *
+     * @param shape the shape to be toggled.
+     */
+    public void toggle(T shape) {
+        synchronized (this) {
+            if (!shapes.remove(shape)) shapes.add(shape);
+        }
+        changeListener.accept(shape);
+    }
+    /**
+     * Checks whether a shape is selected.
+     *
+     * @param shape the shape to be checked.
+     * @return true if this exact shape is selected, false otherwise.
+     */
+    public synchronized boolean contains(T shape) {
+        return shapes.contains(shape);
+    }
+    /**
+     * Deselects all shapes.
+     */
+    public void clear() {
+        List<T> cleared;
+        synchronized (this) {
+            cleared = new ArrayList<>(shapes);
+            shapes.clear();
+        }
+        cleared.forEach(changeListener);
+    }
+    /**
+     * Retrieves the number of selected shapes.
+     *
+     * @return the number of selected shapes.
+     */
+    public synchronized int size() {
+        return shapes.size();
+    }
+    /**
+     * Checks whether no shape is selected.
+     *
+     * @return true if the selection is empty, false otherwise.
+     */
+    public synchronized boolean isEmpty() {
+        return shapes.isEmpty();
+    }
+    /**
+     * Iterates over a snapshot of the selected shapes, so the selection may change during the iteration.
+     *
+     * @return an iterator over the selected shapes.
+     */
+    @Override
+    public synchronized Iterator<T> iterator() {
+        return new ArrayList<>(shapes).iterator();
+    }
+}
@@ -0,0 +1,223 @@
+package projectComponents;
+
+import org.geotools.api.data.DataStore;
+import org.geotools.api.feature.simple.SimpleFeature;
+import org.geotools.data.simple.SimpleFeatureCollection;
+import org.geotools.data.simple.SimpleFeatureIterator;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.LineString;
+import org.locationtech.jts.geom.MultiLineString;
+import org.locationtech.jts.geom.MultiPoint;
+import org.locationtech.jts.geom.MultiPolygon;
+import org.locationtech.jts.geom.Point;
+import org.locationtech.jts.geom.Polygon;
+
+import javax.swing.*;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+/**
+ * The `ShapefileImporter` class imports the features of a shapefile into the shape managers as a background job.
+ * <p>
+ * The features are decoded from the `SimpleFeatureIterator` on the worker thread and handed over in batches of
+ * {@value #BATCH_SIZE} features to the common `ForkJoinPool`, which converts them to flat coordinate buffers and
+ * computes the simplified versions of polygons and lines in parallel. The converted batches are published to the
+ * EDT in the order they were read, so the managers receive the shapes in file order no matter which batch finishes
+ * first. On the EDT every batch is added to each manager with one `addShapes` call inside a bulk update, so the
+ * first shapes are shown right away and the display fills up while the rest of the file is read. The progress is
+ * reported in percent of the features, and the import stops at the next feature when the job is cancelled. The
+ * data store is disposed once the import has ended.
+ * <p>
+ * If the shapefile is read with a `MappedShapefileReader` instead, no features are created at all: the tasks decode
+ * their range of records directly from the mapped file, so the reading itself is done in parallel as well.
+ */
+public class ShapefileImporter extends SwingWorker<Integer, ShapefileImporter.ConvertedBatch> {
+    private static final int BATCH_SIZE = 1000;// Features converted by one task and handed to the EDT at once
+    private static final int TASK_THRESHOLD = 64;// Features a conversion task converts without splitting itself
+
+    private final DataStore store;// Store the features are read from, null if a mapped reader is used
+    private final SimpleFeatureCollection featureCollection;// Features to be imported, null if a mapped reader is used
+    private final MappedShapefileReader reader;// Reader the records are decoded from, null if features are imported
+    private final Map<String, ShapeManager> shapeManagers;// Managers the shapes are added to, by shape type
+    private final Deque<ConversionTask> pendingTasks = new ArrayDeque<>();// Submitted tasks in reading order
+    private int importedFeatures = 0;
+    /**
+     * Constructs an import job; it is started with `execute()`.
+     *
+     * @param store             the data store the features are read from, disposed at the end of the import.
+     * @param featureCollection the features to be imported.
+     * @param shapeManagers     the managers the shapes are added to, by shape type.
+     */
+    public ShapefileImporter(DataStore store, SimpleFeatureCollection featureCollection, Map<String, ShapeManager> shapeManagers) {
+        this.store = store;
+        this.featureCollection = featureCollection;
+        this.reader = null;
+        this.shapeManagers = shapeManagers;
+    }
+    /**
+     * Constructs an import job decoding the records directly from a mapped shapefile; it is started with `execute()`.
+     *
+     * @param reader        the reader the records are decoded from, closed at the end of the import.
+     * @param shapeManagers the managers the shapes are added to, by shape type.
+     */
+    public ShapefileImporter(MappedShapefileReader reader, Map<String, ShapeManager> shapeManagers) {
+        this.store = null;
+        this.featureCollection = null;
+        this.reader = reader;
+        this.shapeManagers = shapeManagers;
+    }
+
+    @Override
+    protected Integer doInBackground() throws IOException {
+        try {
+            if (reader != null) {
+                importRecords();
+            } else {
+                importFeatures();
+            }
+            while (!pendingTasks.isEmpty() && !isCancelled()) publishConverted();
+        } finally {
+            for (ConversionTask task : pendingTasks) task.cancel(false);
+            if (reader != null) {
+                reader.close();
+            } else {
+                store.dispose();
+            }
+        }
+        return importedFeatures;
+    }
+
+    private void importFeatures() {
+        int featureCount = featureCollection.size();
+        try (SimpleFeatureIterator featureIterator = featureCollection.features()) {
+            List<SimpleFeature> batch = new ArrayList<>(BATCH_SIZE);
+            while (featureIterator.hasNext() && !isCancelled()) {
+                batch.add(featureIterator.next());
+                if (batch.size() < BATCH_SIZE && featureIterator.hasNext()) continue;
+
+                List<SimpleFeature> features = batch;
+                submit(new ConversionTask((from, to, converted) -> {
+                    for (int i = from; i < to; i++) convert(features.get(i), converted);
+                }, 0, features.size()), featureCount);
+                batch = new ArrayList<>(BATCH_SIZE);
+            }
+        }
+    }
+
+    private void importRecords() {
+        int recordCount = reader.getRecordCount();
+        for (int from = 0; from < recordCount && !isCancelled(); from += BATCH_SIZE) {
+            submit(new ConversionTask((first, end, converted) -> reader.read(first, end, converted.polygons, converted.lines, converted.points),
+                    from, Math.min(recordCount, from + BATCH_SIZE)), recordCount);
+        }
+    }
+
+    private void submit(ConversionTask task, int featureCount) {
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        int maxPendingTasks = 2 * pool.getParallelism();// Bounds the batches waiting for conversion
+        pool.execute(task);
+        pendingTasks.add(task);
+
+        // Publish the converted batches in reading order, waiting for the oldest one if too many are pending
+        while (!pendingTasks.isEmpty() && (pendingTasks.peek().isDone() || pendingTasks.size() >= maxPendingTasks)) {
+            publishConverted();
+            setProgress(Math.min(100, (int) (100L * importedFeatures / Math.max(1, featureCount))));
+        }
+    }
+
+    private void publishConverted() {
+        ConversionTask task = pendingTasks.poll();
+        publish(task.join());
+        importedFeatures += task.to - task.from;
+    }
+
+    @Override
+    protected void process(List<ConvertedBatch> batches) {
+        // The managers are only notified once per chunk, so the tiles are not invalidated for every single shape
+        for (ShapeManager shapeManager : shapeManagers.values()) shapeManager.beginUpdate();
+        try {
+            for (ConvertedBatch batch : batches) {
+                batch.polygons.addTo(shapeManagers.get("Polygon"));
+                batch.lines.addTo(shapeManagers.get("Line"));
+                batch.points.addTo(shapeManagers.get("Point"));
+            }
+        } finally {
+            for (ShapeManager shapeManager : shapeManagers.values()) shapeManager.endUpdate();
+        }
+    }
+
+    private static void convert(SimpleFeature feature, ConvertedBatch batch) {
+        Geometry geometry = (Geometry) feature.getDefaultGeometryProperty().getValue();
+
+        // Every part of a multi-geometry becomes a shape of its own
+        if (geometry instanceof MultiPolygon || geometry instanceof Polygon) {
+            for (int i = 0; i < geometry.getNumGeometries(); i++) {
+                batch.polygons.addPart(geometry.getGeometryN(i).getCoordinates());
+            }
+        } else if (geometry instanceof MultiPoint || geometry instanceof Point) {
+            batch.points.addPart(geometry.getCoordinates());
+        } else if (geometry instanceof MultiLineString || geometry instanceof LineString) {
+            for (int i = 0; i < geometry.getNumGeometries(); i++) {
+                batch.lines.addPart(geometry.getGeometryN(i).getCoordinates());
+            }
+        }
+    }
+    /**
+     * The converted shapes of a batch of features, by shape type.
+     */
+    public static class ConvertedBatch {
+        final ShapeBuffer polygons = new ShapeBuffer(true, true);
+        final ShapeBuffer lines = new ShapeBuffer(true, false);
+        final ShapeBuffer points = new ShapeBuffer(false, false);
+
+        void addAll(ConvertedBatch other) {
+            polygons.addAll(other.polygons);
+            lines.addAll(other.lines);
+            points.addAll(other.points);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Converter {
+        void convert(int from, int to, ConvertedBatch batch) throws IOException;
+    }
+
+    private static class ConversionTask extends RecursiveTask<ConvertedBatch> {
+        final Converter converter;// Converts a range of features or records into a batch
+        final int from, to;// Range of the features converted by this task
+
+        ConversionTask(Converter converter, int from, int to) {
+            this.converter = converter;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected ConvertedBatch compute() {
+            if (to - from <= TASK_THRESHOLD) {
+                ConvertedBatch batch = new ConvertedBatch();
+                try {
+                    converter.convert(from, to, batch);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return batch;
+            }
+
+            int middle = (from + to) >>> 1;
+            ConversionTask firstHalf = new ConversionTask(converter, from, middle);
+            firstHalf.fork();
+            ConvertedBatch secondBatch = new ConversionTask(converter, middle, to).compute();
+            // Joined in feature order, so the result does not depend on which half finished first
+            ConvertedBatch batch = firstHalf.join();
+            batch.addAll(secondBatch);
+            return batch;
+        }
+    }
+}
@@ -2,6 +2,8 @@ package projectComponents;
 
 import java.awt.*;
 import java.awt.event.MouseEvent;
+import java.awt.geom.Rectangle2D;
+import java.io.IOException;
 /**
  * The {@code SquareManager} class manages the creation, selection, deletion, movement, and rendering of squares.
  * <p>
@@ -22,7 +24,7 @@ public class SquareManager extends RectangleManager {
                     Math.abs(startPoint.x - e.getPoint().x),
                     Math.abs(startPoint.y - e.getPoint().y)
                 );
-                rectangles.add(new Rectangle(
+                addShape(new Rectangle(
                     Math.min(startPoint.x, e.getPoint().x),
                     Math.min(startPoint.y, e.getPoint().y),
                     sideLength, sideLength
@@ -30,32 +32,16 @@ public class SquareManager extends RectangleManager {
                 startPoint = null; // Reset startPoint for the next square
             }
         } else if (currentMode == ActionMode.DELETE) {
-            Rectangle selectedSquare = rectangles.stream()
-                    .filter(square -> square.contains(e.getPoint()))
-                    .findFirst()
-                    .orElse(null);
-            if (selectedSquare != null) {
-                rectangles.remove(selectedSquare);
-                selectedRectangles.remove(selectedSquare);
-            }
+            Rectangle selectedSquare = findRectangleAt(e.getPoint());
+            if (selectedSquare != null) removeRectangle(selectedSquare);
         } else if (currentMode == ActionMode.SELECT) {
-            Rectangle selectedSquare = rectangles.stream()
-                    .filter(square -> square.contains(e.getPoint()))
-                    .findFirst()
-                    .orElse(null);
-            if (selectedSquare != null && selectedRectangles.contains(selectedSquare)) selectedRectangles.remove(selectedSquare);
-            else if (selectedSquare != null) selectedRectangles.add(selectedSquare);
+            Rectangle selectedSquare = findRectangleAt(e.getPoint());
+            if (selectedSquare != null) selectedRectangles.toggle(selectedSquare);
         }
     }
 
     @Override
-    public void paint(Graphics2D g2d) {
-        for (Rectangle square : rectangles) {
-            g2d.setColor(Color.BLACK);
-            if (selectedRectangles.contains(square)) g2d.setColor(Color.BLUE);
-            g2d.draw(square); // Draw each square
-        }
-
+    public void paintPreview(Graphics2D g2d) {
         if (startPoint != null && currentMousePosition != null) {
             // Preview the square being created
             g2d.setColor(Color.RED);
@@ -70,15 +56,35 @@ public class SquareManager extends RectangleManager {
     }
 
     @Override
-    public String toCSVString() {
-        StringBuilder stringBuilder = new StringBuilder();
+    public Rectangle2D getPreviewBounds() {
+        if (startPoint == null || currentMousePosition == null) return null;
+        int sideLength = Math.max(
+            Math.abs(startPoint.x - currentMousePosition.x),
+            Math.abs(startPoint.y - currentMousePosition.y)
+        );
+        return new Rectangle2D.Double(Math.min(startPoint.x, currentMousePosition.x),
+                Math.min(startPoint.y, currentMousePosition.y), sideLength, sideLength);
+    }
+
+    @Override
+    public void writeScene(SceneWriter scene) throws IOException {
+        scene.startSection("Square", 3);
         for (Rectangle square : this.rectangles) {
-            stringBuilder.append("Square,");
-            stringBuilder.append(square.getX()).append(" ");
-            stringBuilder.append(square.getY()).append(" ");
-            stringBuilder.append(square.getWidth()).append(" ");
-            stringBuilder.append("\n");
+            scene.addValue(square.x);
+            scene.addValue(square.y);
+            scene.addValue(square.width);
+            scene.endShape();
         }
-        return stringBuilder.toString();
+    }
+
+    @Override
+    protected void appendCSVRow(Appendable out, Rectangle square) throws IOException {
+        out.append("Square,");
+        appendNumber(out, square.getX());
+        out.append(' ');
+        appendNumber(out, square.getY());
+        out.append(' ');
+        appendNumber(out, square.getWidth());
+        out.append(" \n");
     }
 }
@@ -0,0 +1,32 @@
+package projectComponents;
+
+import java.io.IOException;
+/**
+ * The `SyncWriter` interface receives the shapes changed since the last synchronization, e.g. to apply them to the
+ * rows of a database table. Every shape is identified by the stable id its manager has given it.
+ */
+public interface SyncWriter {
+    /**
+     * Receives a shape added since the last synchronization.
+     *
+     * @param id  the id of the shape.
+     * @param row the CSV row of the shape, e.g. `Polygon,(10 20) (30 40) (10 40)`.
+     * @throws IOException if the shape cannot be written.
+     */
+    void insert(long id, CharSequence row) throws IOException;
+    /**
+     * Receives a shape moved since the last synchronization.
+     *
+     * @param id  the id of the shape.
+     * @param row the current CSV row of the shape.
+     * @throws IOException if the shape cannot be written.
+     */
+    void update(long id, CharSequence row) throws IOException;
+    /**
+     * Receives a shape removed since the last synchronization.
+     *
+     * @param id the id of the shape.
+     * @throws IOException if the removal cannot be written.
+     */
+    void delete(long id) throws IOException;
+}
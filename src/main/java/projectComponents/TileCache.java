@@ -0,0 +1,270 @@
+package projectComponents;
+
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+/**
+ * The `TileCache` class renders the shapes of all layers as a pyramid of image tiles.
+ * <p>
+ * The scene is cut into tiles of {@value #TILE_SIZE} x {@value #TILE_SIZE} pixels, keyed by zoom level and
+ * tile x/y. There are {@value #LEVELS_PER_OCTAVE} zoom levels per doubling of the scale; the tiles of the level
+ * nearest to the current scale are drawn scaled to it, so any zoom path reuses the cached tiles. Tiles are rendered
+ * on background threads and kept in an LRU cache that is bounded by a memory budget, so panning and repeated
+ * zooming over the same area are mostly served from the cache. When shapes change, only the tiles overlapping the
+ * changed area are rendered again; until then the previous image of the tile is shown. While the tiles of a new zoom
+ * level are being rendered, the tiles of the previously shown level are scaled and painted as placeholders.
+ */
+public class TileCache {
+    /** Width and height of a tile in pixels. */
+    public static final int TILE_SIZE = 256;
+    private static final long TILE_BYTES = 4L * TILE_SIZE * TILE_SIZE;
+    // Zoom levels per factor 2 of the scale; the tiles are drawn scaled by at most 2^(1/8), i.e. about 9 %
+    private static final int LEVELS_PER_OCTAVE = 4;
+
+    private final Collection<ShapeLayer> layers;// The layers whose shapes are rendered
+    private final Consumer<Rectangle2D> tileRenderedCallback;// Called from a render thread with the area that changed on a rendered tile
+    private final ExecutorService renderExecutor;
+    private final LinkedHashMap<TileKey, Tile> tiles;// Cached tiles in LRU order
+    private long currentLevel = Long.MIN_VALUE;// Zoom level painted last
+    private long previousLevel = Long.MIN_VALUE;// Zoom level painted before the current one
+    /**
+     * Constructs an empty tile cache.
+     *
+     * @param layers               the layers whose shapes are rendered, in painting order.
+     * @param memoryBudget         the maximum number of bytes used by the cached tiles.
+     * @param tileRenderedCallback called from a render thread with the model-space area that changed whenever a tile
+     *                             is ready to be painted.
+     */
+    public TileCache(Collection<ShapeLayer> layers, long memoryBudget, Consumer<Rectangle2D> tileRenderedCallback) {
+        this.layers = layers;
+        this.tileRenderedCallback = tileRenderedCallback;
+        long maxTiles = Math.max(1, memoryBudget / TILE_BYTES);
+        this.tiles = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<TileKey, Tile> eldest) {
+                return size() > maxTiles;
+            }
+        };
+        this.renderExecutor = Executors.newFixedThreadPool(Math.max(1, Runtime.getRuntime().availableProcessors() - 1), runnable -> {
+            Thread thread = new Thread(runnable, "tile-renderer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    /**
+     * Paints the tiles covering the view and requests the missing ones from the render threads.
+     *
+     * @param g2d  the graphics of the frame, without the view transform.
+     * @param view the view to be painted.
+     */
+    public synchronized void paint(Graphics2D g2d, ViewState view) {
+        double scale = view.getScale();
+        double translateX = view.getTranslateX();
+        double translateY = view.getTranslateY();
+        int width = view.getWidth();
+        int height = view.getHeight();
+        long level = Math.round(Math.log(scale) / Math.log(2) * LEVELS_PER_OCTAVE);
+        if (level != currentLevel) {
+            previousLevel = currentLevel;
+            currentLevel = level;
+        }
+
+        boolean complete = true;
+        for (TileKey key : visibleTiles(level, scale, translateX, translateY, width, height)) {
+            Tile tile = tiles.get(key);
+            if (tile == null) {
+                tile = new Tile();
+                tiles.put(key, tile);
+            }
+            if (tile.image == null) complete = false;
+            if (tile.image == null || tile.stale) schedule(key, tile);
+        }
+
+        // Placeholders are only used while their tiles are not too small on the panel
+        if (!complete && previousLevel != Long.MIN_VALUE && TILE_SIZE * scale / levelScale(previousLevel) >= TILE_SIZE / 8.0) {
+            for (TileKey key : visibleTiles(previousLevel, scale, translateX, translateY, width, height)) {
+                Tile tile = tiles.get(key);
+                if (tile != null && tile.image != null) drawTile(g2d, key, tile, scale, translateX, translateY);
+            }
+        }
+        for (TileKey key : visibleTiles(level, scale, translateX, translateY, width, height)) {
+            Tile tile = tiles.get(key);
+            if (tile != null && tile.image != null) drawTile(g2d, key, tile, scale, translateX, translateY);
+        }
+    }
+    /**
+     * Marks the tiles overlapping the given area as out of date.
+     * <p>
+     * Tiles of the current zoom level are rendered again in the background, tiles of other levels are dropped.
+     *
+     * @param bounds the changed area in model space.
+     */
+    public synchronized void invalidate(Rectangle2D bounds) {
+        Iterator<Map.Entry<TileKey, Tile>> iterator = tiles.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<TileKey, Tile> entry = iterator.next();
+            TileKey key = entry.getKey();
+            if (!key.getModelBounds().intersects(bounds)) continue;
+
+            if (key.level == currentLevel) {
+                Tile tile = entry.getValue();
+                tile.stale = true;
+                tile.generation++;
+                tile.changedBounds = tile.changedBounds == null ? bounds.getBounds2D() : tile.changedBounds.createUnion(bounds);
+                schedule(key, tile);
+            } else {
+                iterator.remove();
+            }
+        }
+    }
+
+    private List<TileKey> visibleTiles(long level, double scale, double translateX, double translateY, int width, int height) {
+        List<TileKey> keys = new ArrayList<>();
+        if (level == Long.MIN_VALUE) return keys;
+
+        // Size of a tile of this level on the panel
+        double tileSize = TILE_SIZE * scale / levelScale(level);
+        int minX = (int) Math.floor(-translateX / tileSize);
+        int minY = (int) Math.floor(-translateY / tileSize);
+        int maxX = (int) Math.floor((width - translateX) / tileSize);
+        int maxY = (int) Math.floor((height - translateY) / tileSize);
+        for (int y = minY; y <= maxY; y++) {
+            for (int x = minX; x <= maxX; x++) {
+                keys.add(new TileKey(level, x, y));
+            }
+        }
+        return keys;
+    }
+
+    private void drawTile(Graphics2D g2d, TileKey key, Tile tile, double scale, double translateX, double translateY) {
+        // Corners are computed independently for every tile, so neighbouring tiles share their edges without gaps
+        double tileSize = TILE_SIZE * scale / levelScale(key.level);
+        int x0 = (int) Math.floor(translateX + key.x * tileSize);
+        int y0 = (int) Math.floor(translateY + key.y * tileSize);
+        int x1 = (int) Math.floor(translateX + (key.x + 1) * tileSize);
+        int y1 = (int) Math.floor(translateY + (key.y + 1) * tileSize);
+        g2d.drawImage(tile.image, x0, y0, x1 - x0, y1 - y0, null);
+    }
+
+    private void schedule(TileKey key, Tile tile) {
+        if (tile.queued) return;
+        tile.queued = true;
+        long generation = tile.generation;
+        renderExecutor.execute(() -> render(key, tile, generation));
+    }
+
+    private void render(TileKey key, Tile tile, long generation) {
+        synchronized (this) {
+            // Skip tiles that have been evicted or belong to a zoom level that is no longer shown
+            if (key.level != currentLevel || tiles.get(key) != tile) {
+                tile.queued = false;
+                return;
+            }
+        }
+
+        Rectangle2D viewport = key.getModelBounds();
+        BufferedImage image = new BufferedImage(TILE_SIZE, TILE_SIZE, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2d = image.createGraphics();
+        try {
+            g2d.setColor(Color.WHITE);
+            g2d.fillRect(0, 0, TILE_SIZE, TILE_SIZE);
+
+            double levelScale = levelScale(key.level);
+            AffineTransform transform = new AffineTransform();
+            transform.translate(-key.x * (double) TILE_SIZE, -key.y * (double) TILE_SIZE);
+            transform.scale(levelScale, levelScale);
+            g2d.transform(transform);
+
+            for (ShapeLayer layer : layers) {
+                // Give up on tiles whose zoom level has been left while rendering, e.g. during continuous zooming
+                if (key.level != getCurrentLevel()) {
+                    synchronized (this) {
+                        tile.queued = false;
+                    }
+                    return;
+                }
+                layer.paintConcurrently(g2d, viewport);
+            }
+        } finally {
+            g2d.dispose();
+        }
+
+        Rectangle2D changed = null;
+        synchronized (this) {
+            tile.queued = false;
+            if (tile.generation == generation) {
+                // Only the invalidated part of a tile looks different, a tile rendered for the first time is new as a whole
+                changed = tile.image == null || tile.changedBounds == null ? viewport : tile.changedBounds.createIntersection(viewport);
+                tile.image = image;
+                tile.stale = false;
+                tile.changedBounds = null;
+            } else {
+                // The shapes changed while rendering: show this image for now and render the tile again
+                if (tile.image == null) {
+                    tile.image = image;
+                    changed = viewport;
+                }
+                if (key.level == currentLevel) schedule(key, tile);
+            }
+        }
+        if (changed != null) tileRenderedCallback.accept(changed);
+    }
+
+    private synchronized long getCurrentLevel() {
+        return currentLevel;
+    }
+
+    private static double levelScale(long level) {
+        return Math.pow(2, (double) level / LEVELS_PER_OCTAVE);
+    }
+
+    private static class TileKey {
+        final long level;
+        final int x, y;
+
+        TileKey(long level, int x, int y) {
+            this.level = level;
+            this.x = x;
+            this.y = y;
+        }
+
+        Rectangle2D getModelBounds() {
+            // Grown by one pixel and one model unit, so that strokes on the tile border are not cut off
+            double levelScale = levelScale(level);
+            double margin = 1 + 1 / levelScale;
+            double size = TILE_SIZE / levelScale;
+            return new Rectangle2D.Double(x * size - margin, y * size - margin, size + 2 * margin, size + 2 * margin);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof TileKey)) return false;
+            TileKey other = (TileKey) o;
+            return level == other.level && x == other.x && y == other.y;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(level, x, y);
+        }
+    }
+
+    private static class Tile {
+        BufferedImage image;// Last rendered image, null until the first rendering is done
+        long generation;// Increased whenever the shapes of the tile change
+        boolean stale;// Whether the image is out of date and a new rendering is pending
+        boolean queued;// Whether a rendering of the tile is queued or running
+        Rectangle2D changedBounds;// Area invalidated since the image was rendered, null if nothing changed
+    }
+}
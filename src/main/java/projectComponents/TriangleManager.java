@@ -2,6 +2,7 @@ package projectComponents;
 
 import java.awt.*;
 import java.awt.event.MouseEvent;
+import java.io.IOException;
 /**
  * The {@code TriangleManager} class manages the creation, selection, deletion, and rendering of triangles.
  * <p>
@@ -20,41 +21,29 @@ public class TriangleManager extends PolygonManager {
                 // Create a triangle from the three points
                 int[] xPoints = {currentPoints.get(0).x, currentPoints.get(1).x, currentPoints.get(2).x};
                 int[] yPoints = {currentPoints.get(0).y, currentPoints.get(1).y, currentPoints.get(2).y};
-                polygons.add(new Polygon(xPoints, yPoints, 3));
+                addPolygon(new Polygon(xPoints, yPoints, 3));
                 currentPoints.clear(); // Clear points for the next triangle
             }
         } else if (currentMode == ActionMode.DELETE) {
-            Polygon selectedTriangle = polygons.stream()
-                    .filter(triangle -> triangle.contains(e.getPoint()))
-                    .findFirst()
-                    .orElse(null);
-            if (selectedTriangle != null) {
-                polygons.remove(selectedTriangle);
-                selectedPolygons.remove(selectedTriangle);
-            }
+            Polygon selectedTriangle = findPolygonAt(e.getPoint());
+            if (selectedTriangle != null) removePolygon(selectedTriangle);
         } else if (currentMode == ActionMode.SELECT) {
-            Polygon selectedTriangle = polygons.stream()
-                    .filter(triangle -> triangle.contains(e.getPoint()))
-                    .findFirst()
-                    .orElse(null);
-            if (selectedTriangle != null && selectedPolygons.contains(selectedTriangle))
-                selectedPolygons.remove(selectedTriangle);
-            else if (selectedTriangle != null) selectedPolygons.add(selectedTriangle);
+            Polygon selectedTriangle = findPolygonAt(e.getPoint());
+            if (selectedTriangle != null) selectedPolygons.toggle(selectedTriangle);
         }
     }
 
     @Override
-    public String toCSVString() {
-        StringBuilder stringBuilder = new StringBuilder();
+    public void writeScene(SceneWriter scene) throws IOException {
+        scene.startSection("Triangle", 0);
         for (Polygon triangle : this.polygons) {
-            stringBuilder.append("Triangle,");
-            int[] xPoints = triangle.xpoints;
-            int[] yPoints = triangle.ypoints;
-            for (int i = 0; i < triangle.npoints; i++) {
-                stringBuilder.append("(").append(xPoints[i]).append(" ").append(yPoints[i]).append(") ");
-            }
-            stringBuilder.append("\n");
+            addPoints(scene, triangle);
         }
-        return stringBuilder.toString();
+    }
+
+    @Override
+    protected void appendCSVRow(Appendable out, Polygon triangle) throws IOException {
+        out.append("Triangle,");
+        appendPoints(out, triangle);
     }
 }
@@ -0,0 +1,76 @@
+package projectComponents;
+
+import java.awt.geom.AffineTransform;
+import java.util.Objects;
+/**
+ * The `ViewState` class is an immutable snapshot of the view transform and size of the drawing panel.
+ * <p>
+ * Frames are rendered on background threads while the user keeps zooming and panning, so every frame is
+ * rendered for such a snapshot instead of reading the live fields of the panel.
+ */
+public class ViewState {
+    private final double scale;// Scale factor from model space to pixels
+    private final double translateX;// X translation in pixels
+    private final double translateY;// Y translation in pixels
+    private final int width;// Width of the panel in pixels
+    private final int height;// Height of the panel in pixels
+    /**
+     * Constructs a snapshot of the view.
+     *
+     * @param scale      the scale factor.
+     * @param translateX the x translation in pixels.
+     * @param translateY the y translation in pixels.
+     * @param width      the width of the panel in pixels.
+     * @param height     the height of the panel in pixels.
+     */
+    public ViewState(double scale, double translateX, double translateY, int width, int height) {
+        this.scale = scale;
+        this.translateX = translateX;
+        this.translateY = translateY;
+        this.width = width;
+        this.height = height;
+    }
+
+    public double getScale() {
+        return scale;
+    }
+
+    public double getTranslateX() {
+        return translateX;
+    }
+
+    public double getTranslateY() {
+        return translateY;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+    /**
+     * Creates the transform from model space to panel pixels.
+     *
+     * @return the view transform.
+     */
+    public AffineTransform createTransform() {
+        AffineTransform transform = AffineTransform.getTranslateInstance(translateX, translateY);
+        transform.scale(scale, scale);
+        return transform;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof ViewState)) return false;
+        ViewState other = (ViewState) o;
+        return scale == other.scale && translateX == other.translateX && translateY == other.translateY
+                && width == other.width && height == other.height;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(scale, translateX, translateY, width, height);
+    }
+}